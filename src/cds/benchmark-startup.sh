@@ -0,0 +1,40 @@
+#!/bin/sh
+# Compare application startup times with and without the AppCDS archive included
+# in an image built with ./gradlew jib -PjibCds. Each run performs a training run 
+# (application startup up to and including the FoD and SSC connection tests, which 
+# fail quickly as they point to a closed local port), and the average wall-clock 
+# time over all runs is reported for both modes.
+#
+# Usage: src/cds/benchmark-startup.sh <image> [runs]
+set -e
+
+IMAGE=${1:?Usage: $0 <image> [runs]}
+RUNS=${2:-5}
+CDS_SRC=$(cd "$(dirname "$0")" && pwd)
+
+run() {
+  docker run --rm --entrypoint java -v "${CDS_SRC}:/cds-src:ro" "${IMAGE}" "$@" \
+    -Dsync.config=/cds-src/training.yml -Dsync.home=/tmp/sync \
+    -DpopulateContainerDirs.sourceDir=/tmp/none \
+    -DpopulateContainerDirs.targetMainClass=com.fortify.sync.fod_ssc.FortifySyncFoDToSSCApplication \
+    -DpopulateContainerDirs.trainingRun=true \
+    -cp @/app/jib-classpath-file com.fortify.sync.fod_ssc.PopulateContainerDirs > /dev/null 2>&1 \
+    || { echo "Startup failed for JVM options: $*"; exit 1; }
+}
+
+benchmark() {
+  LABEL=$1; shift
+  run "$@" # Warm-up run, not measured
+  TOTAL=0
+  for i in $(seq 1 "${RUNS}"); do
+    START=$(date +%s%N)
+    run "$@"
+    END=$(date +%s%N)
+    TOTAL=$((TOTAL + (END - START) / 1000000))
+  done
+  echo "${LABEL}: average startup time $((TOTAL / RUNS)) ms over ${RUNS} runs"
+}
+
+benchmark "Without AppCDS archive" -Xshare:auto
+# -Xshare:on fails the run if the archive cannot be used, for example due to a class path mismatch
+benchmark "With AppCDS archive" -Xshare:on -XX:SharedArchiveFile=/app/cds/app.jsa
@@ -0,0 +1,20 @@
+#!/bin/sh
+# Create an AppCDS archive for the application image. This script is run by the 
+# cdsArchive Gradle task inside a container based on the application image itself,
+# such that the archive is created by the same JVM and for the same class path as 
+# used at runtime. It expects this directory to be mounted at /cds-src, and writes
+# the archive to /cds/app.jsa.
+set -e
+
+CP=@/app/jib-classpath-file
+
+echo "Running training run to collect loaded classes"
+java -XX:DumpLoadedClassList=/tmp/classes.lst \
+  -Dsync.config=/cds-src/training.yml -Dsync.home=/tmp/sync \
+  -DpopulateContainerDirs.sourceDir=/tmp/none \
+  -DpopulateContainerDirs.targetMainClass=com.fortify.sync.fod_ssc.FortifySyncFoDToSSCApplication \
+  -DpopulateContainerDirs.trainingRun=true \
+  -cp $CP com.fortify.sync.fod_ssc.PopulateContainerDirs
+
+echo "Creating AppCDS archive for $(wc -l < /tmp/classes.lst) classes"
+java -Xshare:dump -XX:SharedClassListFile=/tmp/classes.lst -XX:SharedArchiveFile=/cds/app.jsa -cp $CP
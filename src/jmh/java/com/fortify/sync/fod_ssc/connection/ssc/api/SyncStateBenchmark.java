@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.ssc.api;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fortify.util.rest.json.JSONMap;
+
+/**
+ * JMH benchmarks for parsing and generating sync state, operating on synthetic
+ * pages of SSC application versions. Each benchmark invocation processes a full 
+ * page, so results represent the time needed to process a single page of the
+ * configured size.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SyncStateBenchmark {
+	@Param({"10000", "100000"}) 
+	private int pageSize;
+	private List<JSONMap> applicationVersions;
+	private List<String> syncStatusStrings;
+	private SyncStatus[] syncStatuses;
+	
+	@Setup
+	public void setup() {
+		applicationVersions = SyntheticApplicationVersions.generate(pageSize);
+		syncStatusStrings = SyntheticApplicationVersions.generateSyncStatusStrings(pageSize);
+		syncStatuses = syncStatusStrings.stream().map(SyncStatus::parse).toArray(SyncStatus[]::new);
+	}
+	
+	@Benchmark
+	public void syncStatusParse(Blackhole bh) {
+		for ( String syncStatusString : syncStatusStrings ) {
+			bh.consume(SyncStatus.parse(syncStatusString));
+		}
+	}
+	
+	@Benchmark
+	public void syncStatusAsSyncStatusString(Blackhole bh) {
+		for ( SyncStatus syncStatus : syncStatuses ) {
+			bh.consume(syncStatus.asSyncStatusString());
+		}
+	}
+	
+	@Benchmark
+	public void syncConfigGetFromApplicationVersion(Blackhole bh) {
+		for ( JSONMap applicationVersion : applicationVersions ) {
+			bh.consume(SyncConfig.getFromApplicationVersion(applicationVersion));
+		}
+	}
+	
+	/**
+	 * As {@link SyncData} lazily loads {@link SyncConfig} and {@link SyncStatus}, this 
+	 * benchmark includes accessing both, similar to how the SyncScans task uses 
+	 * {@link SyncData} instances.
+	 * 
+	 * @param bh
+	 */
+	@Benchmark
+	public void syncDataConstruction(Blackhole bh) {
+		for ( JSONMap applicationVersion : applicationVersions ) {
+			SyncData syncData = new SyncData(applicationVersion);
+			bh.consume(syncData.getSyncConfig());
+			bh.consume(syncData.getSyncStatus());
+		}
+	}
+}
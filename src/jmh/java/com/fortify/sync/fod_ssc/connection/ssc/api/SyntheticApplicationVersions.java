@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.ssc.api;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+
+/**
+ * This class generates synthetic pages of SSC application version {@link JSONMap} 
+ * instances, similar to those loaded by {@link SyncAPI}, for use in benchmarks. Data is generated using a fixed random seed, so every 
+ * benchmark run operates on the same data.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class SyntheticApplicationVersions {
+	private static final String[][] SCAN_TYPES = {{"Static"}, {"Dynamic"}, {"Static", "Dynamic"}, {"Static", "Dynamic", "Mobile"}};
+	private SyntheticApplicationVersions() {}
+	
+	/**
+	 * Generate the given number of SSC application version {@link JSONMap} instances,
+	 * each containing an id and the sync-related attribute values.
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public static final List<JSONMap> generate(int count) {
+		Random random = new Random(count);
+		List<JSONMap> result = new ArrayList<>(count);
+		for ( int i = 0 ; i < count ; i++ ) {
+			result.add(generateApplicationVersion(random, i));
+		}
+		return result;
+	}
+	
+	/**
+	 * Generate the given number of sync status strings, as stored in the 
+	 * <code>FoD Sync - Status</code> attribute.
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public static final List<String> generateSyncStatusStrings(int count) {
+		Random random = new Random(count);
+		List<String> result = new ArrayList<>(count);
+		for ( int i = 0 ; i < count ; i++ ) {
+			result.add(generateSyncStatus(random, i).asSyncStatusString());
+		}
+		return result;
+	}
+
+	private static final JSONMap generateApplicationVersion(Random random, int index) {
+		String[] scanTypes = SCAN_TYPES[random.nextInt(SCAN_TYPES.length)];
+		JSONList includedScanTypes = new JSONList();
+		for ( String scanType : scanTypes ) { includedScanTypes.add(scanType); }
+		JSONMap attributeValuesByName = new JSONMap();
+		attributeValuesByName.put(SSCSyncAttr.FOD_RELEASE_ID.getAttributeName(), String.valueOf(100000+index));
+		attributeValuesByName.put(SSCSyncAttr.INCLUDE_FOD_SCAN_TYPES.getAttributeName(), includedScanTypes);
+		attributeValuesByName.put(SSCSyncAttr.FOD_SYNC_STATUS.getAttributeName(), generateSyncStatus(random, index).asSyncStatusString());
+		JSONMap applicationVersion = new JSONMap();
+		applicationVersion.put("id", String.valueOf(index));
+		applicationVersion.put("attributeValuesByName", attributeValuesByName);
+		return applicationVersion;
+	}
+	
+	private static final SyncStatus generateSyncStatus(Random random, int index) {
+		SyncStatus syncStatus = new SyncStatus();
+		syncStatus.setFoDReleaseId(String.valueOf(100000+index));
+		for ( String scanType : SCAN_TYPES[random.nextInt(SCAN_TYPES.length)] ) {
+			syncStatus.setScanDate(scanType, new Date(1600000000000L+random.nextInt(Integer.MAX_VALUE)*100L));
+			syncStatus.setScanHash(scanType, String.format("%064x", random.nextLong()));
+		}
+		return syncStatus;
+	}
+}
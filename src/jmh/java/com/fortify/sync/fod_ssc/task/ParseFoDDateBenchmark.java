@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for {@link SyncScansTask#parseFoDDate(String)}, operating on 
+ * synthetic pages of FoD scan dates. The multi-threaded variant allows for 
+ * detecting contention when scan dates are parsed by multiple worker threads.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParseFoDDateBenchmark {
+	private static final DateTimeFormatter FMT_FOD_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+	@Param({"10000", "100000"}) 
+	private int pageSize;
+	private String[] fodDates;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(pageSize);
+		LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+		fodDates = new String[pageSize];
+		for ( int i = 0 ; i < pageSize ; i++ ) {
+			fodDates[i] = start.plusSeconds(random.nextInt(2*365*24*3600)).format(FMT_FOD_DATE);
+		}
+	}
+	
+	@Benchmark
+	public void parseFoDDate(Blackhole bh) {
+		parseAll(bh);
+	}
+	
+	@Benchmark @Threads(4)
+	public void parseFoDDateConcurrent(Blackhole bh) {
+		parseAll(bh);
+	}
+
+	private void parseAll(Blackhole bh) {
+		for ( String fodDate : fodDates ) {
+			bh.consume(SyncScansTask.parseFoDDate(fodDate));
+		}
+	}
+}
@@ -1,11 +1,15 @@
 package com.fortify.sync.fod_ssc;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.fortify.client.fod.api.FoDReleaseAPI;
@@ -17,7 +21,12 @@ import com.fortify.client.ssc.api.SSCIssueTemplateAPI;
 import com.fortify.client.ssc.api.SSCIssueTemplateAPI.SSCIssueTemplateHelper;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection.SSCAuthenticatingRestConnectionBuilder;
+import com.fortify.sync.fod_ssc.config.ClusterConfig;
+import com.fortify.sync.fod_ssc.config.ExecutionConfig;
+import com.fortify.sync.fod_ssc.config.FoDRateLimitConfig;
+import com.fortify.sync.fod_ssc.config.FoDWebhookConfig;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig;
+import com.fortify.sync.fod_ssc.config.SyncStateConfig;
 import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SSCSyncAttr;
 import com.fortify.util.applier.ifblank.IfBlank;
@@ -41,6 +50,8 @@ import com.fortify.util.applier.ifblank.IfBlank;
 @EnableScheduling
 public class FortifySyncFoDToSSCApplication {
 	private static final Logger LOG = LoggerFactory.getLogger(FortifySyncFoDToSSCApplication.class);
+	private final StartupInitializer startupInitializer = new StartupInitializer();
+	private CompletableFuture<SSCAttributeDefinitionHelper> sscAttributeDefinitionHelperFuture;
 	
 	/**
 	 * Start the application
@@ -96,14 +107,72 @@ public class FortifySyncFoDToSSCApplication {
 	}
 	
 	/**
-	 * Instantiate and test the {@link FoDAuthenticatingRestConnection} 
-	 * instance used to connect to FoD, based on the connection builder 
-	 * returned by {@link #fodConnectionBuilder()}. 
+	 * Get a {@link FoDRateLimitConfig} instance, automatically wiring all 
+	 * configuration properties defined in the configuration file. 
+	 * @return
+	 */
+	@Bean
+	@ConfigurationProperties("sync.rate-limits.fod")
+	public FoDRateLimitConfig configFoDRateLimit() {
+		return new FoDRateLimitConfig();
+	}
+	
+	/**
+	 * Get a {@link FoDWebhookConfig} instance, automatically wiring all 
+	 * configuration properties defined in the configuration file. 
+	 * @return
+	 */
+	@Bean
+	@ConfigurationProperties("sync.webhooks.fod")
+	public FoDWebhookConfig configFoDWebhook() {
+		return new FoDWebhookConfig();
+	}
+	
+	/**
+	 * Get a {@link ClusterConfig} instance, automatically wiring all 
+	 * configuration properties defined in the configuration file. 
+	 * @return
+	 */
+	@Bean
+	@ConfigurationProperties("sync.cluster")
+	public ClusterConfig configCluster() {
+		return new ClusterConfig();
+	}
+	
+	/**
+	 * Get an {@link ExecutionConfig} instance, automatically wiring all 
+	 * configuration properties defined in the configuration file. 
+	 * @return
+	 */
+	@Bean
+	@ConfigurationProperties("sync.execution")
+	public ExecutionConfig configExecution() {
+		return new ExecutionConfig();
+	}
+	
+	/**
+	 * Get a {@link SyncStateConfig} instance, automatically wiring all 
+	 * configuration properties defined in the configuration file. 
+	 * @return
+	 */
+	@Bean
+	@ConfigurationProperties("sync.state")
+	public SyncStateConfig configSyncState() {
+		return new SyncStateConfig();
+	}
+	
+	/**
+	 * Instantiate the {@link FoDAuthenticatingRestConnection} instance used to 
+	 * connect to FoD, based on the connection builder returned by 
+	 * {@link #fodConnectionBuilder()}. The connection is tested asynchronously 
+	 * through our {@link StartupInitializer}.
 	 * @return
 	 */
 	@Bean
 	public FoDAuthenticatingRestConnection fodConnection() {
-		return testFoDConnection(fodConnectionBuilder().build());
+		FoDAuthenticatingRestConnection conn = fodConnectionBuilder().build();
+		startupInitializer.submit("FoD connection test", ()->testFoDConnection(conn));
+		return conn;
 	}
 	
 	/**
@@ -123,14 +192,20 @@ public class FortifySyncFoDToSSCApplication {
 	}
 	
 	/**
-	 * Instantiate and test the {@link SSCAuthenticatingRestConnection} 
-	 * instance used to connect to SSC, based on the connection builder 
-	 * returned by {@link #sscConnectionBuilder()}. 
+	 * Instantiate the {@link SSCAuthenticatingRestConnection} instance used to 
+	 * connect to SSC, based on the connection builder returned by 
+	 * {@link #sscConnectionBuilder()}. The connection is tested asynchronously 
+	 * through our {@link StartupInitializer}, after which the 
+	 * {@link SSCAttributeDefinitionHelper} is preloaded.
 	 * @return
 	 */
 	@Bean
 	public SSCAuthenticatingRestConnection sscConnection() {
-		return testSSCConnection(sscConnectionBuilder().build());
+		SSCAuthenticatingRestConnection conn = sscConnectionBuilder().build();
+		CompletableFuture<?> sscConnectionTest = startupInitializer.submit("SSC connection and attribute definitions test", ()->testSSCConnection(conn));
+		sscAttributeDefinitionHelperFuture = startupInitializer.submitAfter("SSC attribute definitions preload", sscConnectionTest, 
+				()->conn.api(SSCAttributeDefinitionAPI.class).getAttributeDefinitionHelper());
+		return conn;
 	}
 	
 	/**
@@ -145,13 +220,37 @@ public class FortifySyncFoDToSSCApplication {
 		return conn;
 	}
 	
+	/**
+	 * Get the {@link SSCAttributeDefinitionHelper} preloaded by {@link #sscConnection()}.
+	 * The SSC connection is injected to guarantee that the preload has been submitted.
+	 * @param sscConnection
+	 * @return
+	 */
 	@Bean 
-	public SSCAttributeDefinitionHelper sscAttributeDefinitionHelper() {
-		return sscConnection().api(SSCAttributeDefinitionAPI.class).getAttributeDefinitionHelper();
+	public SSCAttributeDefinitionHelper sscAttributeDefinitionHelper(SSCAuthenticatingRestConnection sscConnection) {
+		return startupInitializer.await(sscAttributeDefinitionHelperFuture);
 	}
 	
-	@Bean 
+	/**
+	 * Get the {@link SSCIssueTemplateHelper}. As this helper is only used when
+	 * auto-creating SSC application versions, it is lazily initialized on first use.
+	 * @return
+	 */
+	@Bean
+	@Lazy
 	public SSCIssueTemplateHelper sscIssueTemplateHelper() {
 		return sscConnection().api(SSCIssueTemplateAPI.class).getIssueTemplateHelper();
 	}
+	
+	/**
+	 * Wait for all asynchronous startup steps to complete once all singleton beans
+	 * have been instantiated, failing application startup if any of these steps 
+	 * failed, and log the startup timing breakdown. Scheduled tasks are only started
+	 * on the subsequent {@link org.springframework.boot.context.event.ApplicationReadyEvent}.
+	 * @return
+	 */
+	@Bean
+	public SmartInitializingSingleton startupInitializationCompletion() {
+		return startupInitializer::awaitAll;
+	}
 }
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * This class allows {@link FortifySyncFoDToSSCApplication} to run remote startup steps,
+ * like connection tests and helper preloads, concurrently rather than one after another.
+ * Steps are submitted through {@link #submit(String, Supplier)} or 
+ * {@link #submitAfter(String, CompletableFuture, Supplier)}, and the results can be 
+ * awaited individually through {@link #await(CompletableFuture)}. The duration of every
+ * step is recorded; {@link #awaitAll()} waits for all submitted steps to complete, and 
+ * logs the startup timing breakdown.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class StartupInitializer {
+	private static final Logger LOG = LoggerFactory.getLogger(StartupInitializer.class);
+	private final long startNanos = System.nanoTime();
+	private final ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("startup-"));
+	private final Map<String, Long> stepDurationsMillis = new LinkedHashMap<>();
+	private final List<CompletableFuture<?>> futures = new ArrayList<>();
+	
+	/**
+	 * Submit the given startup step for asynchronous execution.
+	 * 
+	 * @param stepName
+	 * @param step
+	 * @return
+	 */
+	public synchronized <T> CompletableFuture<T> submit(String stepName, Supplier<T> step) {
+		return add(CompletableFuture.supplyAsync(()->timed(stepName, step), executor));
+	}
+	
+	/**
+	 * Submit the given startup step for asynchronous execution once the given
+	 * dependency has successfully completed.
+	 * 
+	 * @param stepName
+	 * @param dependency
+	 * @param step
+	 * @return
+	 */
+	public synchronized <T> CompletableFuture<T> submitAfter(String stepName, CompletableFuture<?> dependency, Supplier<T> step) {
+		return add(dependency.thenApplyAsync(x->timed(stepName, step), executor));
+	}
+	
+	/**
+	 * Wait for the given startup step to complete, returning its result. Any
+	 * exception thrown by the startup step is rethrown.
+	 * 
+	 * @param future
+	 * @return
+	 */
+	public <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch ( CompletionException e ) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException)cause : e;
+		}
+	}
+	
+	/**
+	 * Wait for all submitted startup steps to complete, log the startup timing
+	 * breakdown, and shut down our executor. If any of the startup steps failed,
+	 * the corresponding exception is rethrown.
+	 */
+	public void awaitAll() {
+		List<CompletableFuture<?>> allFutures;
+		synchronized (this) {
+			allFutures = new ArrayList<>(futures);
+		}
+		try {
+			allFutures.forEach(this::await);
+			LOG.info("Startup initialization completed in {} ms ({})", 
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-startNanos), getStepDurations());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private final <T> CompletableFuture<T> add(CompletableFuture<T> future) {
+		futures.add(future);
+		return future;
+	}
+	
+	private final <T> T timed(String stepName, Supplier<T> step) {
+		long start = System.nanoTime();
+		try {
+			return step.get();
+		} finally {
+			long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-start);
+			LOG.debug("Startup step '{}' completed in {} ms", stepName, durationMillis);
+			synchronized (stepDurationsMillis) {
+				stepDurationsMillis.put(stepName, durationMillis);
+			}
+		}
+	}
+	
+	private final String getStepDurations() {
+		synchronized (stepDurationsMillis) {
+			return stepDurationsMillis.entrySet().stream()
+					.map(e->e.getKey()+": "+e.getValue()+" ms")
+					.collect(Collectors.joining(", "));
+		}
+	}
+}
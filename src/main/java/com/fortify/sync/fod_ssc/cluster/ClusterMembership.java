@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.cluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.config.ClusterConfig;
+import com.fortify.sync.fod_ssc.task.LinkReleasesTask;
+import com.fortify.sync.fod_ssc.task.SyncScansTask;
+
+/**
+ * This class allows multiple instances of this application to share the sync workload.
+ * Each instance is configured with the total number of instances and its own instance 
+ * index; based on rendezvous hashing, every SSC application version id is owned by exactly 
+ * one instance. {@link SyncScansTask} only processes the application versions owned by 
+ * the current instance, so scan uploads and sync status updates for a single application
+ * version never race between instances. Rendezvous hashing guarantees that changing the
+ * number of instances only moves the application versions owned by added or removed 
+ * instances.
+ * 
+ * As {@link LinkReleasesTask} processes the full set of FoD applications, only a single 
+ * instance may run this task at any time. This is coordinated through an exclusive lock
+ * on a file that must be located on a volume shared by all instances; see
+ * {@link #tryAcquireLeadership()}.
+ * 
+ * If the instance index is not configured, it is derived from the trailing number in the
+ * host name, as used for example by Kubernetes StatefulSet pods. If clustered and the
+ * host name doesn't end with a number, startup fails rather than defaulting to index 0,
+ * as multiple instances claiming the same index would leave the application versions 
+ * owned by other indexes unsynchronized.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ClusterMembership {
+	private static final Logger LOG = LoggerFactory.getLogger(ClusterMembership.class);
+	private static final Pattern HOSTNAME_ORDINAL = Pattern.compile(".*-(\\d+)$");
+	@Autowired private ClusterConfig config;
+	private int instanceIndex;
+	
+	/**
+	 * Determine and validate our instance index
+	 */
+	@PostConstruct
+	public void init() {
+		int instanceCount = config.getInstanceCount();
+		if ( instanceCount < 1 ) {
+			throw new IllegalStateException("sync.cluster.instanceCount must be at least 1");
+		}
+		this.instanceIndex = config.getInstanceIndex()>=0 ? config.getInstanceIndex() : (isClustered() ? getInstanceIndexFromHostName() : 0);
+		if ( instanceIndex >= instanceCount ) {
+			throw new IllegalStateException("Instance index "+instanceIndex+" must be less than sync.cluster.instanceCount ("+instanceCount+")");
+		}
+		if ( isClustered() ) {
+			LOG.info("Running as instance {} of {}", instanceIndex, instanceCount);
+		}
+	}
+	
+	/**
+	 * @return true if more than one instance has been configured, false otherwise
+	 */
+	public boolean isClustered() {
+		return config.getInstanceCount() > 1;
+	}
+
+	/**
+	 * Check whether the given SSC application version id is owned by the current instance.
+	 * The owner is the instance with the highest hash value computed from the application 
+	 * version id and instance index.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @return
+	 */
+	public boolean isOwner(String sscApplicationVersionId) {
+		if ( !isClustered() ) { return true; }
+		int owner = 0;
+		long ownerHash = Long.MIN_VALUE;
+		for ( int i = 0 ; i < config.getInstanceCount() ; i++ ) {
+			long hash = hash(sscApplicationVersionId, i);
+			if ( hash > ownerHash ) {
+				owner = i;
+				ownerHash = hash;
+			}
+		}
+		return owner==instanceIndex;
+	}
+	
+	/**
+	 * Try to acquire leadership for running tasks that must only be run by a single 
+	 * instance at a time. If not clustered, this method always returns a no-op 
+	 * {@link Leadership} instance. Otherwise, this method tries to acquire an exclusive
+	 * lock on the configured leader lock file, returning null if the lock is currently
+	 * held by another instance. Leadership must be released by closing the returned 
+	 * {@link Leadership} instance.
+	 * 
+	 * @return
+	 */
+	public Leadership tryAcquireLeadership() {
+		if ( !isClustered() ) { return ()->{}; }
+		File lockFile = new File(config.getLeaderLockFile());
+		lockFile.getParentFile().mkdirs();
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(lockFile, "rw");
+			FileChannel channel = raf.getChannel();
+			FileLock lock = channel.tryLock();
+			if ( lock==null ) {
+				raf.close();
+				return null;
+			}
+			RandomAccessFile lockedFile = raf;
+			return ()->{
+				try {
+					lock.release();
+				} finally {
+					lockedFile.close();
+				}
+			};
+		} catch ( IOException e ) {
+			closeQuietly(raf);
+			throw new IllegalStateException("Error acquiring lock on "+lockFile.getAbsolutePath(), e);
+		}
+	}
+	
+	/**
+	 * Combine the given application version id and instance index, and mix
+	 * the result using the SplitMix64 finalizer to get well-distributed hash
+	 * values.
+	 */
+	private static final long hash(String sscApplicationVersionId, int instanceIndex) {
+		long h = ((long)sscApplicationVersionId.hashCode() << 32) ^ instanceIndex;
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+	
+	private static final int getInstanceIndexFromHostName() {
+		String hostName = StringUtils.defaultString(System.getenv("HOSTNAME"));
+		Matcher matcher = HOSTNAME_ORDINAL.matcher(hostName);
+		if ( !matcher.matches() ) {
+			throw new IllegalStateException("sync.cluster.instanceIndex must be configured if host name '"+hostName+"' doesn't end with an instance number");
+		}
+		return Integer.parseInt(matcher.group(1));
+	}
+	
+	private static final void closeQuietly(RandomAccessFile raf) {
+		if ( raf!=null ) {
+			try {
+				raf.close();
+			} catch ( IOException e ) {
+				LOG.warn("Error closing leader lock file", e);
+			}
+		}
+	}
+	
+	/**
+	 * Leadership acquired through {@link ClusterMembership#tryAcquireLeadership()};
+	 * leadership is released when closed.
+	 */
+	@FunctionalInterface
+	public static interface Leadership extends AutoCloseable {
+		public void close() throws IOException;
+	}
+}
@@ -38,4 +38,25 @@ public interface IScheduleConfig {
 	 * @return
 	 */
 	public String getCronSchedule();
+	
+	/**
+	 * Get the policy for handling scheduled executions that are triggered while 
+	 * a previous execution of the same task is still running.
+	 * 
+	 * @return
+	 */
+	public OverrunPolicy getOverrunPolicy();
+	
+	/**
+	 * Policies for handling scheduled executions that are triggered while a 
+	 * previous execution is still running:
+	 * <ul>
+	 *  <li>{@link #SKIP}: Skip the triggered execution</li>
+	 *  <li>{@link #COALESCE}: Run once more immediately after the current execution
+	 *      completes, no matter how many executions were triggered in the meantime</li>
+	 * </ul>
+	 */
+	public static enum OverrunPolicy {
+		SKIP, COALESCE
+	}
 }
@@ -46,9 +46,19 @@ import lombok.EqualsAndHashCode;
 @Data
 public class LinkReleasesTaskConfig implements IScheduleConfig {
 	private String cronSchedule = "-";
+	private OverrunPolicy overrunPolicy = OverrunPolicy.SKIP;
+	private int maxConcurrentApplications = 1;
+	private long linkedIdsRebuildIntervalMinutes = 60;
+	private ConfigIncremental incremental = new ConfigIncremental();
 	private ConfigJobLinkReleasesFoD fod = new ConfigJobLinkReleasesFoD();
 	private ConfigJobLinkReleasesSSC ssc = new ConfigJobLinkReleasesSSC();
 	
+    @Data public static class ConfigIncremental {
+    	private boolean enabled = false;
+    	private long fullReconciliationIntervalMinutes = 1440;
+    	private int applicationIdBatchSize = 50;
+    }
+    
     @Data public static class ConfigJobLinkReleasesFoD {
     	private ConfigFoDQuery filters = new ConfigFoDQuery(); 
     }
@@ -70,6 +80,7 @@ public class LinkReleasesTaskConfig implements IScheduleConfig {
     @Data public static abstract class AbstractFoDQueryConfig {
     	private String fodFilterParam;
     	private SimpleExpression[] filterExpressions;
+    	private boolean pushDownFilterExpressions = false;
     }
     
     @Data @EqualsAndHashCode(callSuper=true) public static class ConfigApplicationFilters extends AbstractFoDQueryConfig {} 
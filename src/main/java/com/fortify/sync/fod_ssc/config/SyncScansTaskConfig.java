@@ -41,7 +41,28 @@ import lombok.Data;
 @Data
 public class SyncScansTaskConfig implements IScheduleConfig {
 	private String cronSchedule = "-";
+	private OverrunPolicy overrunPolicy = OverrunPolicy.SKIP;
 	private long deleteScansOlderThanMinutes = 0;
+	private long retainFailedUploadScansMinutes = 1440;
 	private long ignoreScansOlderThanDays = 730; // Default FoD retention policy is 2 years
 	private String scansTempDir = Constants.SYNC_HOME+"/scans";
+	private boolean streamScans = false;
+	private boolean skipIdenticalScans = false;
+	private int maxConcurrentVersions = 1;
+	private int releaseLookupBatchSize = 50;
+	private ConfigPipeline pipeline = new ConfigPipeline();
+	private ConfigAdaptivePolling adaptivePolling = new ConfigAdaptivePolling();
+	
+	@Data public static class ConfigPipeline {
+		private boolean enabled = false;
+		private int downloadWorkers = 2;
+		private int uploadWorkers = 2;
+		private int queueSize = 4;
+	}
+	
+	@Data public static class ConfigAdaptivePolling {
+		private boolean enabled = false;
+		private long initialBackoffMinutes = 15;
+		private long maxIntervalMinutes = 1440;
+	}
 }
\ No newline at end of file
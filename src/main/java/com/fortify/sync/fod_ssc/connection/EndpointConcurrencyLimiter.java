@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.config.ExecutionConfig;
+
+/**
+ * This class limits the number of concurrent requests to each remote {@link Endpoint},
+ * independent of the number of threads processing application versions or applications. 
+ * This is mostly useful in combination with virtual threads, where the number of 
+ * concurrently processed items can be much higher than the number of requests that 
+ * FoD or SSC can handle concurrently. Endpoints for which no limit has been configured
+ * are not limited.
+ * 
+ * Callers that need to access both endpoints at the same time must always acquire
+ * {@link Endpoint#FOD} before {@link Endpoint#SSC}, to avoid deadlocks.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class EndpointConcurrencyLimiter {
+	@Autowired private ExecutionConfig config;
+	private final Map<Endpoint, Semaphore> semaphores = new EnumMap<>(Endpoint.class);
+	
+	public static enum Endpoint {
+		FOD, SSC
+	}
+	
+	/**
+	 * Create a {@link Semaphore} for every endpoint that has a limit configured
+	 */
+	@PostConstruct
+	public void init() {
+		addSemaphore(Endpoint.FOD, config.getMaxConcurrentFoDRequests());
+		addSemaphore(Endpoint.SSC, config.getMaxConcurrentSSCRequests());
+	}
+
+	private final void addSemaphore(Endpoint endpoint, int maxConcurrentRequests) {
+		if ( maxConcurrentRequests > 0 ) {
+			semaphores.put(endpoint, new Semaphore(maxConcurrentRequests, true));
+		}
+	}
+	
+	/**
+	 * Run the given {@link Runnable} while holding a permit for the given {@link Endpoint}.
+	 * 
+	 * @param endpoint
+	 * @param runnable
+	 */
+	public void run(Endpoint endpoint, Runnable runnable) {
+		call(endpoint, ()->{ runnable.run(); return null; });
+	}
+	
+	/**
+	 * Invoke the given {@link Supplier} while holding a permit for the given {@link Endpoint},
+	 * returning the supplied value.
+	 * 
+	 * @param endpoint
+	 * @param supplier
+	 * @return
+	 */
+	public <T> T call(Endpoint endpoint, Supplier<T> supplier) {
+		Semaphore semaphore = semaphores.get(endpoint);
+		if ( semaphore==null ) {
+			return supplier.get();
+		}
+		semaphore.acquireUninterruptibly();
+		try {
+			return supplier.get();
+		} finally {
+			semaphore.release();
+		}
+	}
+}
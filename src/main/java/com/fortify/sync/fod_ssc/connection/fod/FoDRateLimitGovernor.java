@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.fod;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.config.FoDRateLimitConfig;
+import com.fortify.sync.fod_ssc.metrics.SyncMetrics;
+import com.fortify.util.rest.json.preprocessor.IJSONMapPreProcessor;
+
+/**
+ * This class implements a token bucket that is shared by all tasks that access FoD, 
+ * in order to keep the total number of FoD requests within the configured budget 
+ * rather than relying on retrying requests after FoD has rejected them. The bucket
+ * is refilled at the configured number of requests per minute, and can hold up to
+ * the configured maximum burst size. 
+ * 
+ * Callers invoke {@link #acquire(Priority)} before sending a request to FoD. If no
+ * tokens are available, callers are blocked until a token becomes available, with
+ * {@link Priority#HIGH} callers (syncing scans) always being served before 
+ * {@link Priority#LOW} callers (enumerating releases to be linked). The time spent 
+ * waiting is recorded through {@link SyncMetrics}.
+ * 
+ * As the individual page requests of paged FoD queries are handled by the Fortify 
+ * client API, callers acquire a token for the first page before executing the query,
+ * and register the {@link IJSONMapPreProcessor} returned by {@link #pageMeter(Priority)}
+ * as the first pre-processor on the query to acquire a token for every subsequent 
+ * page. As this pre-processor can only detect a new page once its first record is
+ * being processed, waiting for a page token delays the request for the page after
+ * that.
+ * 
+ * Waiting callers block on a {@link ReentrantLock} {@link Condition} rather than
+ * on a monitor, to avoid pinning the carrier thread when running on virtual threads.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class FoDRateLimitGovernor {
+	@Autowired private FoDRateLimitConfig config;
+	@Autowired private SyncMetrics syncMetrics;
+	/** Number of records returned per page by paged FoD queries */
+	public static final int FOD_PAGE_SIZE = 50;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition tokenAvailable = lock.newCondition();
+	private double tokens = -1;
+	private long lastRefillNanos;
+	private int highPriorityWaiters = 0;
+	
+	/**
+	 * Request priority
+	 */
+	public static enum Priority {
+		HIGH, LOW
+	}
+	
+	/**
+	 * Acquire a token for sending a single request to FoD, blocking until
+	 * a token is available. If rate limiting is disabled, this method returns
+	 * immediately.
+	 * 
+	 * @param priority
+	 */
+	public final void acquire(Priority priority) {
+		if ( config.isEnabled() ) {
+			long start = System.nanoTime();
+			try {
+				acquireToken(priority);
+			} finally {
+				syncMetrics.recordFoDRateLimitWait(priority.name(), System.nanoTime()-start);
+			}
+		}
+	}
+	
+	/**
+	 * Get an {@link IJSONMapPreProcessor} that acquires a token for every page after
+	 * the first page of a paged FoD query, based on the number of records processed.
+	 * Each paged query must use a new instance, registered as the first pre-processor
+	 * of the query to make sure that all records are counted. The returned 
+	 * pre-processor never excludes any records.
+	 * 
+	 * @param priority
+	 * @return
+	 */
+	public final IJSONMapPreProcessor pageMeter(Priority priority) {
+		int[] recordCount = {0};
+		return json -> {
+			if ( recordCount[0]>0 && recordCount[0]%FOD_PAGE_SIZE==0 ) {
+				acquire(priority);
+			}
+			recordCount[0]++;
+			return true;
+		};
+	}
+	
+	private final void acquireToken(Priority priority) {
+		lock.lock();
+		if ( priority==Priority.HIGH ) { highPriorityWaiters++; }
+		try {
+			while ( true ) {
+				refill();
+				if ( tokens >= 1 && (priority==Priority.HIGH || highPriorityWaiters==0) ) {
+					tokens--;
+					return;
+				}
+				tokenAvailable.await(Math.max(1, getMillisUntilNextToken()), TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for FoD rate limit", e);
+		} finally {
+			if ( priority==Priority.HIGH ) { highPriorityWaiters--; }
+			tokenAvailable.signalAll();
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Add tokens based on the time passed since the previous refill. On first
+	 * invocation, the bucket is filled up to the maximum burst size.
+	 */
+	private final void refill() {
+		long now = System.nanoTime();
+		if ( tokens < 0 ) {
+			tokens = getCapacity();
+		} else {
+			double elapsedMinutes = (double)(now-lastRefillNanos) / TimeUnit.MINUTES.toNanos(1);
+			tokens = Math.min(getCapacity(), tokens + elapsedMinutes*getRequestsPerMinute());
+		}
+		lastRefillNanos = now;
+	}
+	
+	private final long getMillisUntilNextToken() {
+		return (long)Math.ceil((1-tokens) * TimeUnit.MINUTES.toMillis(1) / getRequestsPerMinute());
+	}
+	
+	private final int getRequestsPerMinute() {
+		return Math.max(1, config.getRequestsPerMinute());
+	}
+	
+	private final int getCapacity() {
+		return Math.max(1, config.getMaxBurst());
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.fod.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.WebTarget;
+
+import com.fortify.client.fod.api.AbstractFoDAPI;
+import com.fortify.client.fod.api.FoDReleaseAPI;
+import com.fortify.client.fod.connection.FoDAuthenticatingRestConnection;
+
+/**
+ * This {@link AbstractFoDAPI} implementation provides streaming access to FoD FPR
+ * downloads. Contrary to {@link FoDReleaseAPI#saveFPR(String, String, java.nio.file.Path)},
+ * the FPR contents are not written to disk, but handed to the caller as an 
+ * {@link InputStream} that reads directly from the FoD response body.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class SyncFPRAPI extends AbstractFoDAPI {
+	/**
+	 * Configure FoD connection
+	 * @param conn
+	 */
+	public SyncFPRAPI(FoDAuthenticatingRestConnection conn) {
+		super(conn);
+	}
+	
+	/**
+	 * Download the FPR file for the given FoD release id and scan type, and pass
+	 * the response body to the given {@link Function}. The {@link InputStream} 
+	 * is closed once the given {@link Function} returns, so callers must fully 
+	 * consume the stream before returning.
+	 * 
+	 * @param fodReleaseId
+	 * @param scanType
+	 * @param fprProcessor
+	 * @return Value returned by the given {@link Function}
+	 */
+	public final <R> R processFPR(String fodReleaseId, String scanType, Function<InputStream, R> fprProcessor) {
+		WebTarget target = conn().getBaseResource()
+				.path("/api/v3/releases/{releaseId}/fpr")
+				.resolveTemplate("releaseId", fodReleaseId)
+				.queryParam("scanType", scanType);
+		try ( InputStream fprInputStream = conn().executeRequest(HttpMethod.GET, target, InputStream.class) ) {
+			return fprProcessor.apply(fprInputStream);
+		} catch (IOException e) {
+			throw new RuntimeException("Error closing FPR input stream for FoD release id "+fodReleaseId, e);
+		}
+	}
+}
@@ -24,8 +24,11 @@
  ******************************************************************************/
 package com.fortify.sync.fod_ssc.connection.ssc.api;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -64,6 +67,41 @@ public final class SyncAPI extends AbstractSSCAPI {
 		return result;
 	}
 	
+	/**
+	 * Query the id, name and application name for all SSC application versions in a
+	 * single paged pass, and return an {@link ApplicationVersionNameIndex} for looking
+	 * up application versions by application and version name.
+	 * @return
+	 */
+	public final ApplicationVersionNameIndex getApplicationVersionNameIndex() {
+		ApplicationVersionNameIndex result = new ApplicationVersionNameIndex();
+		conn().api(SSCApplicationVersionAPI.class)
+			.queryApplicationVersions()
+			.paramFields("id", "name", "project")
+			.build().processAll(result);
+		return result;
+	}
+	
+	/**
+	 * Query the id, name and application name for the SSC application version with the given
+	 * application and version name, returning null if no such application version exists. 
+	 * This allows for looking up individual application versions that are not yet known by 
+	 * an {@link ApplicationVersionNameIndex}, for example because they were created directly 
+	 * on SSC after the index was loaded.
+	 * 
+	 * @param sscApplicationName
+	 * @param sscVersionName
+	 * @return
+	 */
+	public final JSONMap getApplicationVersionByName(String sscApplicationName, String sscVersionName) {
+		return conn().api(SSCApplicationVersionAPI.class)
+			.queryApplicationVersions()
+			.applicationName(sscApplicationName)
+			.versionName(sscVersionName)
+			.paramFields("id", "name", "project")
+			.build().getUnique();
+	}
+	
 	/**
 	 * This method provides the following functionality:
 	 * <ol>
@@ -87,6 +125,30 @@ public final class SyncAPI extends AbstractSSCAPI {
 			.build().processAll(new SyncDataConsumerWrapper(syncDataConsumer, predicate));
 	}
 	
+	/**
+	 * Similar to {@link #processSyncData(SSCAttributeDefinitionHelper, Consumer, SyncConfigPredicate)},
+	 * but only queries the SSC application versions with the given id's, using a single 
+	 * request per application version. This avoids paging through all SSC application 
+	 * versions if only a few application versions need to be processed. Application 
+	 * versions that no longer exist are ignored.
+	 * 
+	 * @param attributeDefinitionHelper
+	 * @param syncDataConsumer
+	 * @param predicate
+	 * @param sscApplicationVersionIds
+	 */
+	public final void processSyncData(SSCAttributeDefinitionHelper attributeDefinitionHelper, final Consumer<SyncData> syncDataConsumer, SyncConfigPredicate predicate, Collection<String> sscApplicationVersionIds) {
+		SyncDataConsumerWrapper consumer = new SyncDataConsumerWrapper(syncDataConsumer, predicate);
+		for ( String sscApplicationVersionId : sscApplicationVersionIds ) {
+			conn().api(SSCApplicationVersionAPI.class)
+				.queryApplicationVersions()
+				.id(sscApplicationVersionId)
+				.paramFields("id")
+				.embedAttributeValuesByName(attributeDefinitionHelper)
+				.build().processAll(consumer);
+		}
+	}
+	
 	/**
 	 * This enumeration provides various predicates based on sync configuration.
 	 * @author Ruud Senden
@@ -111,19 +173,19 @@ public final class SyncAPI extends AbstractSSCAPI {
 	 * <ul>
 	 *  <li>Set of all SSC application version id's that are currently linked to an FoD release</li>
 	 *  <li>Set of all FoD release id's that are currently linked to an SSC application version</li>
+	 *  <li>Map of linked SSC application version id's by FoD release id</li>
 	 * </ul>
+	 * All sets and maps are thread-safe, allowing new links to be added while other threads
+	 * are looking up existing links.
+	 * 
 	 * @author Ruud Senden
 	 *
 	 */
 	@Data
 	public static final class LinkedVersionsAndReleasesIds implements Consumer<SyncData> {
-		private final Set<String> linkedSSCApplicationVersionIds = new HashSet<>();
-		private final Set<String> linkedFoDReleaseIds = new HashSet<>();
-		
-		/**
-		 * Private constructor to disallow external instantiation
-		 */
-		private LinkedVersionsAndReleasesIds() {}
+		private final Set<String> linkedSSCApplicationVersionIds = ConcurrentHashMap.newKeySet();
+		private final Set<String> linkedFoDReleaseIds = ConcurrentHashMap.newKeySet();
+		private final Map<String, Set<String>> linkedSSCApplicationVersionIdsByFoDReleaseId = new ConcurrentHashMap<>();
 
 		/**
 		 * For each synced application version, this method stores the SSC 
@@ -133,9 +195,101 @@ public final class SyncAPI extends AbstractSSCAPI {
 		 */
 		@Override
 		public void accept(SyncData syncData) {
-			SyncConfig syncConfig = syncData.getSyncConfig();
-			linkedFoDReleaseIds.add(syncConfig.getFodReleaseId());
-			linkedSSCApplicationVersionIds.add(syncData.getSSCApplicationVersionId());
+			addLink(syncData.getSSCApplicationVersionId(), syncData.getSyncConfig().getFodReleaseId());
+		}
+		
+		/**
+		 * Store the given SSC application version id and FoD release id, for
+		 * example after the application version has been newly linked. 
+		 * 
+		 * @param sscApplicationVersionId
+		 * @param fodReleaseId
+		 */
+		public void addLink(String sscApplicationVersionId, String fodReleaseId) {
+			linkedFoDReleaseIds.add(fodReleaseId);
+			linkedSSCApplicationVersionIds.add(sscApplicationVersionId);
+			linkedSSCApplicationVersionIdsByFoDReleaseId.computeIfAbsent(fodReleaseId, k->ConcurrentHashMap.newKeySet())
+				.add(sscApplicationVersionId);
+		}
+		
+		/**
+		 * Add all links from the given {@link LinkedVersionsAndReleasesIds} instance.
+		 * 
+		 * @param other
+		 */
+		public void addAll(LinkedVersionsAndReleasesIds other) {
+			other.getLinkedSSCApplicationVersionIdsByFoDReleaseId().forEach((fodReleaseId, sscApplicationVersionIds)->
+				sscApplicationVersionIds.forEach(sscApplicationVersionId->addLink(sscApplicationVersionId, fodReleaseId)));
+		}
+	}
+	
+	/**
+	 * This class provides an in-memory index of SSC application versions by application
+	 * and version name. As SSC application and version names are case-insensitive, 
+	 * look-ups are case-insensitive as well. Application versions are indexed by 
+	 * application name and then by version name, so names containing any separator 
+	 * characters cannot collide. The index is thread-safe, and can be updated with
+	 * newly created application versions.
+	 * 
+	 * @author Ruud Senden
+	 *
+	 */
+	public static final class ApplicationVersionNameIndex implements Consumer<JSONMap> {
+		private final Map<String, Map<String, JSONMap>> applicationVersionsByName = new ConcurrentHashMap<>();
+		
+		/**
+		 * Package-private constructor to disallow external instantiation
+		 */
+		ApplicationVersionNameIndex() {}
+		
+		/**
+		 * Add the given SSC application version JSON object to the index
+		 * 
+		 * @param sscApplicationVersion
+		 */
+		@Override
+		public void accept(JSONMap sscApplicationVersion) {
+			add(sscApplicationVersion.get("id", String.class), 
+				sscApplicationVersion.getPath("project.name", String.class), 
+				sscApplicationVersion.get("name", String.class));
+		}
+		
+		/**
+		 * Add the given SSC application version id to the index, for example 
+		 * after creating a new application version.
+		 * 
+		 * @param sscApplicationVersionId
+		 * @param sscApplicationName
+		 * @param sscVersionName
+		 */
+		public void add(String sscApplicationVersionId, String sscApplicationName, String sscVersionName) {
+			JSONMap sscApplicationVersion = new JSONMap();
+			sscApplicationVersion.put("id", sscApplicationVersionId);
+			sscApplicationVersion.put("name", sscVersionName);
+			JSONMap sscApplication = new JSONMap();
+			sscApplication.put("name", sscApplicationName);
+			sscApplicationVersion.put("project", sscApplication);
+			applicationVersionsByName.computeIfAbsent(getKey(sscApplicationName), k->new ConcurrentHashMap<>())
+				.put(getKey(sscVersionName), sscApplicationVersion);
+		}
+		
+		/**
+		 * Get the SSC application version JSON object for the given application and 
+		 * version name, or null if no such application version exists. The returned 
+		 * {@link JSONMap} contains the application version id, name and application 
+		 * name.
+		 * 
+		 * @param sscApplicationName
+		 * @param sscVersionName
+		 * @return
+		 */
+		public JSONMap get(String sscApplicationName, String sscVersionName) {
+			Map<String, JSONMap> applicationVersions = applicationVersionsByName.get(getKey(sscApplicationName));
+			return applicationVersions==null ? null : applicationVersions.get(getKey(sscVersionName));
+		}
+		
+		private static final String getKey(String name) {
+			return String.valueOf(name).toLowerCase(Locale.ROOT);
 		}
 	}
 	
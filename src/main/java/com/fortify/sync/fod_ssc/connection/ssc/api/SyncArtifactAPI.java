@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.ssc.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.lang.StringUtils;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.file.StreamDataBodyPart;
+
+import com.fortify.client.ssc.api.AbstractSSCAPI;
+import com.fortify.client.ssc.api.SSCArtifactAPI;
+import com.fortify.client.ssc.api.SSCFileUploadAPI;
+import com.fortify.client.ssc.api.SSCFileUploadAPI.FileUploadTokenType;
+import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+
+/**
+ * This {@link AbstractSSCAPI} implementation allows for uploading artifacts to 
+ * SSC from an arbitrary {@link InputStream}. Contrary to 
+ * {@link SSCArtifactAPI#uploadArtifact(String, java.io.File)}, this doesn't require
+ * the artifact to be available as a local file.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class SyncArtifactAPI extends AbstractSSCAPI {
+	/**
+	 * SSC result code indicating that the artifact was successfully submitted for processing
+	 */
+	private static final String SSC_UPLOAD_SUCCESS_CODE = "-10001";
+	
+	/**
+	 * Configure SSC connection
+	 * @param conn
+	 */
+	public SyncArtifactAPI(SSCAuthenticatingRestConnection conn) {
+		super(conn);
+	}
+	
+	/**
+	 * Upload the artifact contents read from the given {@link InputStream} to the 
+	 * given SSC application version. The request body is streamed to SSC, so the
+	 * artifact is never fully loaded into memory. The given file name is passed 
+	 * to SSC to allow SSC to identify the artifact type, so this should end with
+	 * the appropriate extension, for example <code>.fpr</code>.
+	 * 
+	 * @param applicationVersionId
+	 * @param fileName
+	 * @param artifactInputStream
+	 */
+	public final void uploadArtifact(String applicationVersionId, String fileName, InputStream artifactInputStream) {
+		String uploadToken = conn().api(SSCFileUploadAPI.class).getFileUploadToken(FileUploadTokenType.UPLOAD);
+		WebTarget target = conn().getBaseResource()
+				.path("/upload/resultFileUpload.html")
+				.queryParam("mat", uploadToken);
+		try ( FormDataMultiPart multiPart = new FormDataMultiPart() ) {
+			multiPart.field("entityId", applicationVersionId);
+			multiPart.bodyPart(new StreamDataBodyPart("file", artifactInputStream, fileName, MediaType.APPLICATION_OCTET_STREAM_TYPE));
+			String result = conn().executeRequest(HttpMethod.POST, target, Entity.entity(multiPart, multiPart.getMediaType()), String.class);
+			if ( !StringUtils.contains(result, SSC_UPLOAD_SUCCESS_CODE) ) {
+				throw new RuntimeException("Error uploading artifact to SSC application version id "+applicationVersionId+": "+result);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error closing multipart request for SSC application version id "+applicationVersionId, e);
+		}
+	}
+}
@@ -35,6 +35,7 @@ import com.fortify.util.rest.json.JSONMap;
  */
 public class SyncData {
 	private final JSONMap sscApplicationVersion;
+	private final String sscApplicationVersionId;
 	private SyncConfig syncConfig;
 	private SyncStatus syncStatus;
 
@@ -44,6 +45,23 @@ public class SyncData {
 	 */
 	public SyncData(JSONMap sscApplicationVersion) {
 		this.sscApplicationVersion = sscApplicationVersion;
+		this.sscApplicationVersionId = sscApplicationVersion.get("id", String.class);
+	}
+	
+	/**
+	 * Constructor for setting the given SSC application version id, {@link SyncConfig}
+	 * and {@link SyncStatus}, for example as loaded from a local state store rather 
+	 * than from SSC.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param syncConfig
+	 * @param syncStatus
+	 */
+	public SyncData(String sscApplicationVersionId, SyncConfig syncConfig, SyncStatus syncStatus) {
+		this.sscApplicationVersion = null;
+		this.sscApplicationVersionId = sscApplicationVersionId;
+		this.syncConfig = syncConfig;
+		this.syncStatus = syncStatus;
 	}
 	
 	/**
@@ -71,7 +89,7 @@ public class SyncData {
 	}
 	
 	public String getSSCApplicationVersionId() {
-		return sscApplicationVersion.get("id", String.class);
+		return sscApplicationVersionId;
 	}
 
 }
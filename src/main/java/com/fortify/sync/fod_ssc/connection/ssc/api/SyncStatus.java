@@ -28,6 +28,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -44,8 +45,10 @@ import com.fortify.util.rest.json.JSONMap;
 
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 
 /**
  * This class holds the current sync status for an SSC application version. This includes the 
@@ -53,8 +56,13 @@ import lombok.Setter;
  * <ul>
  *  <li>The FoD release id with which this application version was last synced</li>
  *  <li>For each of the scan types being synced, the scan date for the scan that was last synced</li>
+ *  <li>For each of the scan types being synced, the SHA-256 hash of the scan that was last synced</li>
  *  <li>A flag indicating whether the scan status has been changed during the current run</li>
  * </ul>
+ * The sync status data and modified flag are guarded by the monitor of each instance. Storing
+ * the sync status on SSC is serialized through a separate {@link #getUpdateLock() update lock},
+ * such that concurrent updates for the same application version are sent in order without
+ * holding the monitor during remote calls.
  * Apart from the actual sync status data, this class provides various methods for storing
  * and loading the current sync status as an SSC application version attribute.  
  *  
@@ -70,7 +78,11 @@ public final class SyncStatus {
 	@JsonProperty private String fodReleaseId;
 	@Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) 
 	@JsonProperty private Map<String,Date> scanDates = new HashMap<>();
+	@Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) 
+	@JsonProperty private Map<String,String> scanHashes = new HashMap<>();
 	@JsonIgnore private boolean modified;
+	@Setter(AccessLevel.NONE) @EqualsAndHashCode.Exclude @ToString.Exclude
+	@JsonIgnore private final ReentrantLock updateLock = new ReentrantLock();
 	
 	public static final SyncStatus getFromApplicationVersion(JSONMap sscApplicationVersion) {
 		JSONMap attributeValuesByName = sscApplicationVersion.get("attributeValuesByName", JSONMap.class);
@@ -78,8 +90,19 @@ public final class SyncStatus {
 	}
 	
 	public final MultiValueMap<String,Object> asAttributesMap() {
+		return asAttributesMap(asSyncStatusString());
+	}
+	
+	/**
+	 * Get the SSC application version attributes for storing the given sync status string,
+	 * as previously generated by {@link #asSyncStatusString()}.
+	 * 
+	 * @param syncStatusString
+	 * @return
+	 */
+	public static final MultiValueMap<String,Object> asAttributesMap(String syncStatusString) {
 		MultiValueMap<String, Object> attributes = new LinkedMultiValueMap<>();
-		attributes.add(SSC_ATTR_FOD_SYNC_STATUS, asSyncStatusString());
+		attributes.add(SSC_ATTR_FOD_SYNC_STATUS, syncStatusString);
 		return attributes;
 	}
 	
@@ -89,7 +112,7 @@ public final class SyncStatus {
 	 * @param syncStatusString
 	 * @return
 	 */
-	private static final SyncStatus parse(String syncStatusString) {
+	public static final SyncStatus parse(String syncStatusString) {
 		SyncStatus result = new SyncStatus();
 		try {
 			if ( StringUtils.isNotBlank(syncStatusString) ) {
@@ -107,7 +130,7 @@ public final class SyncStatus {
 	 * the current sync status for later parsing by the {@link #parse(String)} method.
 	 * @return
 	 */
-	private final String asSyncStatusString() {
+	public final String asSyncStatusString() {
 		try {
 			return MAPPER.writeValueAsString(this);
 		} catch (JsonProcessingException e) {
@@ -176,4 +199,30 @@ public final class SyncStatus {
 			this.scanDates.put(scanType.toLowerCase(), scanDate);
 		}
 	}
+	
+	/**
+	 * Get the SHA-256 hash (hex-encoded) of the last synced scan of the given scan type.
+	 * If the given scan type has not been synced before, or the hash is not known, this 
+	 * method returns null.
+	 * @param scanType
+	 * @return
+	 */
+	public final String getScanHash(String scanType) {
+		return this.scanHashes.get(scanType.toLowerCase());
+	}
+	
+	/**
+	 * Update the SHA-256 hash (hex-encoded) for the given scan type. If the given hash 
+	 * is equal to the currently stored hash, this method has no effect. If the hashes 
+	 * differ, the new hash is stored and the modified flag is set to true.
+	 * 
+	 * @param scanType
+	 * @param scanHash
+	 */
+	public void setScanHash(String scanType, String scanHash) {
+		if ( !Objects.equals(getScanHash(scanType), scanHash)) {
+			this.modified = true;
+			this.scanHashes.put(scanType.toLowerCase(), scanHash);
+		}
+	}
 }
\ No newline at end of file
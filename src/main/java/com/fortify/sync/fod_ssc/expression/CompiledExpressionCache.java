@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.expression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.stereotype.Component;
+
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.preprocessor.IJSONMapPreProcessor;
+
+/**
+ * This class parses SpEL predicate and template expressions once, caching the parsed
+ * expressions for subsequent evaluation. Expressions are parsed with the SpEL compiler
+ * in {@link SpelCompilerMode#MIXED} mode, so expressions that are evaluated repeatedly 
+ * will be compiled to bytecode where possible, falling back to interpreted mode for 
+ * expressions or values that cannot be compiled.
+ * 
+ * Expressions are evaluated against {@link Map} instances like {@link JSONMap}, with
+ * map entries being accessible as properties. Similar to the Fortify client API 
+ * expression helpers, properties that are not present in the map evaluate to null.
+ * Template expressions use the <code>${...}</code> syntax. Parity with the Fortify 
+ * client API expression helpers for all expressions in the sample configuration 
+ * files is verified by <code>CompiledExpressionCacheTest</code>.
+ * 
+ * As {@link StandardEvaluationContext} is not designed to be shared between threads,
+ * each thread evaluates expressions using its own {@link EvaluationContext} instance.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class CompiledExpressionCache {
+	private static final ExpressionParser PARSER = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED, CompiledExpressionCache.class.getClassLoader()));
+	private static final ParserContext TEMPLATE_PARSER_CONTEXT = new TemplateParserContext("${", "}");
+	private final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Expression> templateExpressions = new ConcurrentHashMap<>();
+	private final ThreadLocal<EvaluationContext> evaluationContext = ThreadLocal.withInitial(CompiledExpressionCache::createEvaluationContext);
+	
+	/**
+	 * Get the parsed and cached SpEL expression for the given expression string
+	 * @param expression
+	 * @return
+	 */
+	public final Expression getExpression(String expression) {
+		return expressions.computeIfAbsent(expression, PARSER::parseExpression);
+	}
+	
+	/**
+	 * Get the parsed and cached SpEL template expression for the given template string
+	 * @param template
+	 * @return
+	 */
+	public final Expression getTemplateExpression(String template) {
+		return templateExpressions.computeIfAbsent(template, t->PARSER.parseExpression(t, TEMPLATE_PARSER_CONTEXT));
+	}
+	
+	/**
+	 * Evaluate the given template string on the given input object. If the given
+	 * template string is null, this method returns null.
+	 * @param input
+	 * @param template
+	 * @param returnType
+	 * @return
+	 */
+	public final <T> T evaluateTemplateExpression(Object input, String template, Class<T> returnType) {
+		return template==null ? null : getTemplateExpression(template).getValue(evaluationContext.get(), input, returnType);
+	}
+	
+	/**
+	 * Evaluate the given predicate expression on the given input object
+	 * @param input
+	 * @param expression
+	 * @return
+	 */
+	public final boolean evaluatePredicate(Object input, String expression) {
+		return Boolean.TRUE.equals(getExpression(expression).getValue(evaluationContext.get(), input, Boolean.class));
+	}
+	
+	/**
+	 * Get an {@link IJSONMapPreProcessor} instance that only includes {@link JSONMap} 
+	 * instances that match the given predicate expression.
+	 * @param expression
+	 * @return
+	 */
+	public final IJSONMapPreProcessor getFilter(String expression) {
+		Expression parsedExpression = getExpression(expression);
+		return json -> Boolean.TRUE.equals(parsedExpression.getValue(evaluationContext.get(), json, Boolean.class));
+	}
+	
+	private static final EvaluationContext createEvaluationContext() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.addPropertyAccessor(new NullSafeMapAccessor());
+		return context;
+	}
+	
+	/**
+	 * {@link MapAccessor} extension that returns null for properties that are not 
+	 * present in the map, rather than throwing an exception. This class inherits
+	 * the bytecode generation from {@link MapAccessor}, which already evaluates 
+	 * to null for missing properties in compiled expressions.
+	 */
+	private static final class NullSafeMapAccessor extends MapAccessor {
+		@Override
+		public boolean canRead(EvaluationContext context, Object target, String name) throws AccessException {
+			return target instanceof Map;
+		}
+		
+		@Override
+		public TypedValue read(EvaluationContext context, Object target, String name) throws AccessException {
+			return new TypedValue(((Map<?, ?>) target).get(name));
+		}
+	}
+}
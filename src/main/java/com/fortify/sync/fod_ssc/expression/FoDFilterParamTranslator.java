@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * This class translates simple SpEL filter expressions into FoD 'filter' request 
+ * parameter values, allowing FoD to filter applications or releases server-side.
+ * The following expression forms are recognized:
+ * <ul>
+ *  <li><code>field == 'value'</code> or <code>'value' == field</code>, where field 
+ *      is a top-level property, translated to <code>field:value</code></li>
+ *  <li><code>a and b</code>, where any translatable operands are translated as 
+ *      described above</li>
+ * </ul>
+ * Any other expression forms, like nested properties or map access, are not translated.
+ * Values containing characters that have a special meaning in FoD filters are not
+ * translated either. 
+ * 
+ * Note that FoD may perform 'contains' rather than exact matching, and may ignore 
+ * case, so the translated filters may return more results than the original 
+ * expression. Callers must therefore still apply the original expression client-side;
+ * the translated filters only serve to reduce the amount of data returned by FoD.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class FoDFilterParamTranslator {
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+	private static final char[] FOD_FILTER_SPECIAL_CHARS = {':', '+', '|'};
+	private FoDFilterParamTranslator() {}
+	
+	/**
+	 * Translate the given SpEL expression into zero or more FoD filter parameter values, 
+	 * which should be combined using AND semantics. If the given expression, or any part 
+	 * of it, cannot be translated, the returned list will be empty or only contain
+	 * the translatable parts.
+	 * 
+	 * @param expression
+	 * @return
+	 */
+	public static final List<String> translate(String expression) {
+		List<String> result = new ArrayList<>();
+		addFoDFilterParams(result, ((SpelExpression)PARSER.parseExpression(expression)).getAST());
+		return result;
+	}
+
+	private static final void addFoDFilterParams(List<String> result, SpelNode node) {
+		if ( node instanceof OpAnd ) {
+			for ( int i = 0 ; i < node.getChildCount() ; i++ ) {
+				addFoDFilterParams(result, node.getChild(i));
+			}
+		} else if ( node instanceof OpEQ ) {
+			addFoDFilterParam(result, node.getChild(0), node.getChild(1));
+			addFoDFilterParam(result, node.getChild(1), node.getChild(0));
+		}
+	}
+
+	private static final void addFoDFilterParam(List<String> result, SpelNode fieldNode, SpelNode valueNode) {
+		if ( fieldNode instanceof PropertyOrFieldReference && valueNode instanceof StringLiteral ) {
+			String field = ((PropertyOrFieldReference)fieldNode).getName();
+			Object value = ((StringLiteral)valueNode).getLiteralValue().getValue();
+			if ( value!=null && StringUtils.isNotBlank(value.toString()) && StringUtils.containsNone(value.toString(), FOD_FILTER_SPECIAL_CHARS) ) {
+				result.add(field+":"+value);
+			}
+		}
+	}
+}
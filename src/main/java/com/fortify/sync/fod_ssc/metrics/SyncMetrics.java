@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * This class provides methods for recording the various Micrometer metrics 
+ * published by this utility. All metrics are tagged with the name of the task 
+ * that generated the metric, and where applicable with the FoD scan type. 
+ * Timers are additionally tagged with an outcome (success or failure). Metrics 
+ * can be accessed through the Spring Boot Actuator endpoints, for example the
+ * <code>/actuator/prometheus</code> endpoint.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class SyncMetrics {
+	private static final String PFX = "fortify.sync.";
+	private static final String TAG_TASK = "task";
+	private static final String TAG_SCAN_TYPE = "scan.type";
+	private static final String TAG_OUTCOME = "outcome";
+	private static final String TAG_PRIORITY = "priority";
+	@Autowired private MeterRegistry registry;
+	
+	/**
+	 * Record the duration of a single task run
+	 * @param taskName
+	 * @param run
+	 */
+	public final void recordTaskRun(String taskName, Runnable run) {
+		record(timer("task.run", "Duration of task runs"), run, TAG_TASK, taskName);
+	}
+	
+	/**
+	 * Increment the number of scheduled task executions that were triggered 
+	 * while a previous execution was still running
+	 * @param taskName
+	 * @param overrunPolicy
+	 */
+	public final void incrementTaskOverruns(String taskName, String overrunPolicy) {
+		Counter.builder(PFX+"task.overruns")
+			.description("Number of scheduled task executions triggered while a previous execution was still running")
+			.tag(TAG_TASK, taskName)
+			.tag("policy", overrunPolicy.toLowerCase())
+			.register(registry).increment();
+	}
+	
+	/**
+	 * Increment the number of application versions scanned for new FoD scans
+	 * @param taskName
+	 */
+	public final void incrementVersionsScanned(String taskName) {
+		Counter.builder(PFX+"versions.scanned")
+			.description("Number of SSC application versions checked for new FoD scans")
+			.tag(TAG_TASK, taskName)
+			.register(registry).increment();
+	}
+	
+	/**
+	 * Record the duration of a single FoD release lookup request
+	 * @param taskName
+	 * @param lookup
+	 */
+	public final void recordFoDReleaseLookup(String taskName, Runnable lookup) {
+		record(timer("fod.release.lookups", "Duration of FoD release lookups"), lookup, TAG_TASK, taskName);
+	}
+	
+	/**
+	 * Record the duration of downloading a single FPR file from FoD
+	 * @param taskName
+	 * @param scanType
+	 * @param download
+	 */
+	public final void recordFPRDownload(String taskName, String scanType, Runnable download) {
+		record(timer("fod.fpr.download", "Duration of FoD FPR downloads"), download, TAG_TASK, taskName, TAG_SCAN_TYPE, scanType.toLowerCase());
+	}
+	
+	/**
+	 * Record the size of a single FPR file downloaded from FoD
+	 * @param taskName
+	 * @param scanType
+	 * @param bytes
+	 */
+	public final void recordFPRDownloadBytes(String taskName, String scanType, long bytes) {
+		bytes("fod.fpr.download.size", "Size of FoD FPR downloads", taskName, scanType).record(bytes);
+	}
+	
+	/**
+	 * Record the duration of uploading a single artifact to SSC
+	 * @param taskName
+	 * @param scanType
+	 * @param upload
+	 */
+	public final void recordArtifactUpload(String taskName, String scanType, Runnable upload) {
+		record(timer("ssc.artifact.upload", "Duration of SSC artifact uploads"), upload, TAG_TASK, taskName, TAG_SCAN_TYPE, scanType.toLowerCase());
+	}
+	
+	/**
+	 * Record the size of a single artifact uploaded to SSC
+	 * @param taskName
+	 * @param scanType
+	 * @param bytes
+	 */
+	public final void recordArtifactUploadBytes(String taskName, String scanType, long bytes) {
+		bytes("ssc.artifact.upload.size", "Size of SSC artifact uploads", taskName, scanType).record(bytes);
+	}
+	
+	/**
+	 * Record the duration of updating the sync status of a single SSC application version 
+	 * @param taskName
+	 * @param update
+	 */
+	public final void recordStatusUpdate(String taskName, Runnable update) {
+		record(timer("ssc.status.update", "Duration of SSC sync status updates"), update, TAG_TASK, taskName);
+	}
+	
+	/**
+	 * Increment the number of failures for the given scan type
+	 * @param taskName
+	 * @param scanType
+	 */
+	public final void incrementScanFailures(String taskName, String scanType) {
+		Counter.builder(PFX+"scan.failures")
+			.description("Number of failed scan synchronizations")
+			.tag(TAG_TASK, taskName)
+			.tag(TAG_SCAN_TYPE, scanType.toLowerCase())
+			.register(registry).increment();
+	}
+	
+	/**
+	 * Record the time spent waiting for the FoD rate limit
+	 * @param priority
+	 * @param nanos
+	 */
+	public final void recordFoDRateLimitWait(String priority, long nanos) {
+		timer("fod.ratelimit.wait", "Time spent waiting for the FoD rate limit")
+			.tag(TAG_PRIORITY, priority.toLowerCase())
+			.register(registry).record(nanos, TimeUnit.NANOSECONDS);
+	}
+	
+	private final Timer.Builder timer(String name, String description) {
+		return Timer.builder(PFX+name).description(description);
+	}
+	
+	private final DistributionSummary bytes(String name, String description, String taskName, String scanType) {
+		return DistributionSummary.builder(PFX+name)
+			.description(description)
+			.baseUnit("bytes")
+			.tag(TAG_TASK, taskName)
+			.tag(TAG_SCAN_TYPE, scanType.toLowerCase())
+			.register(registry);
+	}
+	
+	/**
+	 * Run the given {@link Runnable}, and record its duration with the given tags
+	 * and an outcome tag indicating whether the {@link Runnable} completed successfully.
+	 * Any exceptions thrown by the given {@link Runnable} are re-thrown.
+	 *  
+	 * @param timerBuilder
+	 * @param runnable
+	 * @param tags
+	 */
+	private final void record(Timer.Builder timerBuilder, Runnable runnable, String... tags) {
+		Timer.Sample sample = Timer.start(registry);
+		String outcome = "failure";
+		try {
+			runnable.run();
+			outcome = "success";
+		} finally {
+			sample.stop(timerBuilder.tags(tags).tag(TAG_OUTCOME, outcome).register(registry));
+		}
+	}
+	
+	/**
+	 * {@link FilterInputStream} implementation that counts the number of bytes read,
+	 * allowing for recording the size of streamed scans. 
+	 */
+	public static final class CountingInputStream extends FilterInputStream {
+		private long byteCount = 0;
+		
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if ( result!=-1 ) { byteCount++; }
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = super.read(b, off, len);
+			if ( result>0 ) { byteCount+=result; }
+			return result;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long result = super.skip(n);
+			byteCount+=result;
+			return result;
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+		
+		public long getByteCount() {
+			return byteCount;
+		}
+	}
+}
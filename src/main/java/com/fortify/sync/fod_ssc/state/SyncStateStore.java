@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.state;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fortify.sync.fod_ssc.config.SyncStateConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncData;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class provides a local, persistent store that mirrors the sync configuration
+ * and sync status of all linked SSC application versions, based on an embedded H2 
+ * {@link MVStore} file. If enabled, the sync tasks use this store as their primary 
+ * source of linked application versions, avoiding the need to load all SSC application
+ * versions with their attribute values on every run. The store is fully refreshed from
+ * SSC if the configured refresh interval has passed, and is updated in place whenever
+ * this utility links an application version or updates the sync status on SSC.
+ * 
+ * Note that any sync configuration changes made directly on SSC, like manually linking 
+ * or unlinking an application version, will only be picked up during the next full
+ * refresh.
+ * 
+ * If disabled, all methods in this class simply defer to SSC.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class SyncStateStore {
+	private static final Logger LOG = LoggerFactory.getLogger(SyncStateStore.class);
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private static final String MAP_SYNC_DATA = "syncData";
+	private static final String MAP_META = "meta";
+	private static final String META_LAST_SSC_REFRESH = "lastSSCRefresh";
+	@Autowired private SyncStateConfig config;
+	private MVStore store;
+	private MVMap<String, String> syncDataMap;
+	private MVMap<String, Long> metaMap;
+	
+	/**
+	 * Open the store file if the store has been enabled.
+	 */
+	@PostConstruct
+	public void open() {
+		if ( config.isEnabled() ) {
+			File storeFile = new File(config.getFile());
+			storeFile.getAbsoluteFile().getParentFile().mkdirs();
+			LOG.info("Opening sync state store {}", storeFile.getAbsolutePath());
+			this.store = new MVStore.Builder().fileName(storeFile.getAbsolutePath()).compress().open();
+			this.syncDataMap = store.openMap(MAP_SYNC_DATA);
+			this.metaMap = store.openMap(MAP_META);
+		}
+	}
+	
+	/**
+	 * Close the store file, if open.
+	 */
+	@PreDestroy
+	public void close() {
+		if ( store!=null ) {
+			store.close();
+		}
+	}
+	
+	/**
+	 * @return true if the store is enabled, false otherwise
+	 */
+	public boolean isEnabled() {
+		return store!=null;
+	}
+	
+	/**
+	 * Open an additional named map in the underlying {@link MVStore}, allowing other
+	 * components to persist their state in the same store file. This method may only
+	 * be called if the store is enabled.
+	 *  
+	 * @param name
+	 * @return
+	 */
+	public <K,V> MVMap<K,V> openMap(String name) {
+		if ( !isEnabled() ) {
+			throw new IllegalStateException("Sync state store is not enabled");
+		}
+		return store.openMap(name);
+	}
+	
+	/**
+	 * Get the {@link SyncData} for all linked SSC application versions. If the store
+	 * is disabled, this simply returns the list provided by the given SSC loader. If 
+	 * the store is enabled, the store contents will be replaced with the list provided
+	 * by the given SSC loader if the configured refresh interval has passed. Otherwise,
+	 * the list of linked application versions is loaded from the store.  
+	 * 
+	 * @param sscLoader
+	 * @return
+	 */
+	public synchronized List<SyncData> getSyncDataList(Supplier<List<SyncData>> sscLoader) {
+		if ( !isEnabled() ) {
+			return sscLoader.get();
+		} else if ( isSSCRefreshRequired() ) {
+			return refreshFromSSC(sscLoader);
+		} else {
+			return loadSyncDataList();
+		}
+	}
+	
+	/**
+	 * Force a full refresh from SSC during the next call to {@link #getSyncDataList(Supplier)}.
+	 */
+	public void invalidate() {
+		if ( isEnabled() ) {
+			metaMap.remove(META_LAST_SSC_REFRESH);
+		}
+	}
+	
+	/**
+	 * Store the given {@link SyncConfig} for the given SSC application version id, for example
+	 * after the application version has been linked to an FoD release. Any previously stored
+	 * sync status for this application version is retained.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param syncConfig
+	 */
+	public void putSyncConfig(String sscApplicationVersionId, SyncConfig syncConfig) {
+		if ( isEnabled() ) {
+			updateStoredSyncData(sscApplicationVersionId, true, storedSyncData->{
+				storedSyncData.setFodReleaseId(syncConfig.getFodReleaseId());
+				storedSyncData.setIncludedScanTypes(syncConfig.getIncludedScanTypes());
+			});
+		}
+	}
+	
+	/**
+	 * Store the given {@link SyncStatus} string, as generated by {@link SyncStatus#asSyncStatusString()},
+	 * for the given SSC application version id. This should be called whenever the sync status 
+	 * has been updated on SSC, passing the same string as stored on SSC.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param syncStatusString
+	 */
+	public void putSyncStatus(String sscApplicationVersionId, String syncStatusString) {
+		if ( isEnabled() ) {
+			updateStoredSyncData(sscApplicationVersionId, false, storedSyncData->storedSyncData.setSyncStatus(syncStatusString));
+		}
+	}
+	
+	/**
+	 * Atomically update the stored sync data for the given SSC application version id 
+	 * using the given updater. As both sync tasks may concurrently update different parts
+	 * of the same entry, entries are updated through {@link MVMap#compute(Object, java.util.function.BiFunction)}
+	 * rather than separate get and put operations, to avoid lost updates. Note that the 
+	 * updater may be invoked more than once if a concurrent update is detected.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param createIfAbsent If false, nothing is stored if there's no entry for the given id yet
+	 * @param updater
+	 */
+	private final void updateStoredSyncData(String sscApplicationVersionId, boolean createIfAbsent, Consumer<StoredSyncData> updater) {
+		syncDataMap.compute(sscApplicationVersionId, (id, value)->{
+			if ( value==null && !createIfAbsent ) { return null; }
+			StoredSyncData storedSyncData = value==null ? new StoredSyncData() : parse(value);
+			updater.accept(storedSyncData);
+			return serialize(id, storedSyncData);
+		});
+	}
+	
+	private final boolean isSSCRefreshRequired() {
+		Long lastSSCRefresh = metaMap.get(META_LAST_SSC_REFRESH);
+		return lastSSCRefresh==null || 
+				lastSSCRefresh < System.currentTimeMillis() - config.getSscRefreshIntervalMinutes()*1000*60;
+	}
+	
+	private final List<SyncData> refreshFromSSC(Supplier<List<SyncData>> sscLoader) {
+		LOG.debug("Refreshing sync state store from SSC");
+		long refreshTime = System.currentTimeMillis();
+		List<SyncData> result = sscLoader.get();
+		Set<String> sscApplicationVersionIds = new HashSet<>();
+		for ( SyncData syncData : result ) {
+			String sscApplicationVersionId = syncData.getSSCApplicationVersionId();
+			sscApplicationVersionIds.add(sscApplicationVersionId);
+			putStoredSyncData(sscApplicationVersionId, new StoredSyncData(syncData));
+		}
+		for ( String storedApplicationVersionId : new ArrayList<>(syncDataMap.keySet()) ) {
+			if ( !sscApplicationVersionIds.contains(storedApplicationVersionId) ) {
+				syncDataMap.remove(storedApplicationVersionId);
+			}
+		}
+		metaMap.put(META_LAST_SSC_REFRESH, refreshTime);
+		store.commit();
+		return result;
+	}
+	
+	private final List<SyncData> loadSyncDataList() {
+		LOG.debug("Loading linked application versions from sync state store");
+		List<SyncData> result = new ArrayList<>(syncDataMap.size());
+		for ( Map.Entry<String, String> entry : syncDataMap.entrySet() ) {
+			result.add(parse(entry.getValue()).asSyncData(entry.getKey()));
+		}
+		return result;
+	}
+	
+	private final void putStoredSyncData(String sscApplicationVersionId, StoredSyncData storedSyncData) {
+		syncDataMap.put(sscApplicationVersionId, serialize(sscApplicationVersionId, storedSyncData));
+	}
+	
+	private static final String serialize(String sscApplicationVersionId, StoredSyncData storedSyncData) {
+		try {
+			return MAPPER.writeValueAsString(storedSyncData);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Error serializing sync state for application version id "+sscApplicationVersionId, e);
+		}
+	}
+	
+	private static final StoredSyncData parse(String value) {
+		try {
+			return MAPPER.readValue(value, StoredSyncData.class);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Error parsing stored sync state", e);
+		}
+	}
+	
+	/**
+	 * Data class representing the stored sync configuration and sync status
+	 * for a single SSC application version.
+	 */
+	@Data @NoArgsConstructor
+	private static final class StoredSyncData {
+		private String fodReleaseId;
+		private String[] includedScanTypes = new String[] {};
+		private String syncStatus;
+		
+		public StoredSyncData(SyncData syncData) {
+			SyncConfig syncConfig = syncData.getSyncConfig();
+			this.fodReleaseId = syncConfig.getFodReleaseId();
+			this.includedScanTypes = syncConfig.getIncludedScanTypes();
+			this.syncStatus = syncData.getSyncStatus().asSyncStatusString();
+		}
+		
+		public SyncData asSyncData(String sscApplicationVersionId) {
+			return new SyncData(sscApplicationVersionId, new SyncConfig(fodReleaseId, includedScanTypes), SyncStatus.parse(syncStatus));
+		}
+	}
+}
@@ -25,24 +25,42 @@
 package com.fortify.sync.fod_ssc.task;
 
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.scheduling.support.CronTrigger;
 
 import com.fortify.sync.fod_ssc.config.IScheduleConfig;
+import com.fortify.sync.fod_ssc.config.IScheduleConfig.OverrunPolicy;
+import com.fortify.sync.fod_ssc.metrics.SyncMetrics;
 
 /**
  * Abstract base class for scheduled tasks. Based on the provided {@link IScheduleConfig},
  * this class will determine whether scheduled execution is enabled or not. If enabled,
  * the {@link #runTask()} method provided by the concrete implementation class will be 
- * automatically invoked based on the configured schedule.  
+ * automatically invoked based on the configured schedule. Scheduling only starts once 
+ * the application is ready, so scheduled runs never start before all asynchronous 
+ * startup steps, like the FoD and SSC connection tests, have completed successfully.
+ * 
+ * Each task has its own trigger thread and its own execution thread, so different 
+ * tasks can run concurrently, while executions of the same task never overlap. If 
+ * the schedule fires while a previous execution is still running, the configured 
+ * {@link OverrunPolicy} determines whether the triggered execution is skipped or 
+ * coalesced into a single execution that runs once the current execution completes.
+ * Such overruns are counted through {@link SyncMetrics}.
  * 
  * @author Ruud Senden
  *
@@ -50,24 +68,104 @@ import com.fortify.sync.fod_ssc.config.IScheduleConfig;
 public abstract class AbstractScheduledTask<C extends IScheduleConfig> implements Runnable {
 	private static final Logger LOG = LoggerFactory.getLogger(AbstractScheduledTask.class);
 	private final String DEFAULT_TASK_NAME = this.getClass().getSimpleName();
-	@Autowired private TaskScheduler scheduler;
+	@Autowired private SyncMetrics syncMetrics;
+	private final AtomicBoolean running = new AtomicBoolean(false);
+	private final AtomicBoolean runPending = new AtomicBoolean(false);
 	private CronSequenceGenerator cronSequenceGenerator;
+	private ThreadPoolTaskScheduler triggerScheduler;
+	private ExecutorService executor;
 	
 	/**
-	 * Set up scheduled task execution if a valid schedule has been configured.  
+	 * Log our configuration, and warn if no valid schedule has been configured.  
 	 */
 	@PostConstruct
 	public void postConstruct() {
 		LOG.info("{} configuration: {}", getTaskName(), getConfig());
-		String cronSchedule = getConfig().getCronSchedule();
-		if ("-".equals(StringUtils.defaultIfBlank(cronSchedule,"-")) ) {
+		if ( !isScheduled() ) {
 			LOG.warn("No schedule defined for {}; task will not be run automatically", getTaskName());
-		} else {
-			scheduler.schedule(this, new CronTrigger(cronSchedule));
+		}
+	}
+	
+	/**
+	 * Set up scheduled task execution if a valid schedule has been configured. This
+	 * is invoked once the application is ready, which is only after all asynchronous 
+	 * startup steps have completed successfully.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void startSchedule() {
+		if ( isScheduled() ) {
+			String cronSchedule = getConfig().getCronSchedule();
+			executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(getTaskName()+"-"));
+			triggerScheduler = new ThreadPoolTaskScheduler();
+			triggerScheduler.setPoolSize(1);
+			triggerScheduler.setThreadNamePrefix(getTaskName()+"-trigger-");
+			triggerScheduler.initialize();
+			triggerScheduler.schedule(this::trigger, new CronTrigger(cronSchedule));
 			LOG.info("{} scheduled at {}", getTaskName(), getNextExecutionTime());
 		}
 	}
 	
+	private final boolean isScheduled() {
+		return !"-".equals(StringUtils.defaultIfBlank(getConfig().getCronSchedule(),"-"));
+	}
+	
+	/**
+	 * Shut down our trigger scheduler and executor, if scheduled execution is enabled.
+	 */
+	@PreDestroy
+	public void preDestroy() {
+		if ( triggerScheduler!=null ) {
+			triggerScheduler.shutdown();
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * This method is invoked by our trigger scheduler based on the configured schedule. If
+	 * no execution is currently running, it submits a new execution to our executor. Otherwise,
+	 * depending on the configured {@link OverrunPolicy}, the triggered execution is either 
+	 * skipped, or marked as pending to be run after the current execution completes.
+	 */
+	private final void trigger() {
+		if ( running.compareAndSet(false, true) ) {
+			executor.execute(this::runUntilNoneIsPending);
+		} else {
+			OverrunPolicy overrunPolicy = getConfig().getOverrunPolicy();
+			syncMetrics.incrementTaskOverruns(getTaskName(), overrunPolicy.name());
+			if ( overrunPolicy==OverrunPolicy.COALESCE ) {
+				LOG.info("{} is still running; will run again once the current run completes", getTaskName());
+				runPending.set(true);
+			} else {
+				LOG.warn("{} is still running; skipping scheduled run", getTaskName());
+			}
+		}
+	}
+	
+	/**
+	 * Invoke {@link #run()}, and invoke it again for as long as any coalesced runs are pending.
+	 */
+	private final void runUntilNoneIsPending() {
+		do {
+			try {
+				do {
+					runPending.set(false);
+					runAndLogErrors();
+				} while ( runPending.get() );
+			} finally {
+				running.set(false);
+			}
+			// A run may have been marked as pending just before we reset the running flag 
+		} while ( runPending.get() && running.compareAndSet(false, true) );
+	}
+
+	private final void runAndLogErrors() {
+		try {
+			run();
+		} catch ( RuntimeException e ) {
+			LOG.error("Error running "+getTaskName(), e);
+		}
+	}
+	
 	private final Date getNextExecutionTime() {
 		return getCronSequenceGenerator().next(new Date());
 	}
@@ -82,19 +180,20 @@ public abstract class AbstractScheduledTask<C extends IScheduleConfig> implement
 	/**
 	 * This method is invoked by the scheduler; it logs start and end of scheduled task
 	 * execution, invoking the abstract {@link #runTask()} method to have subclasses
-	 * perform the actual work.
+	 * perform the actual work. The duration of each run is recorded through 
+	 * {@link SyncMetrics}.
 	 */
 	public final void run() {
 		LOG.info("Running {}", getTaskName());
 		try {
-			runTask();
+			syncMetrics.recordTaskRun(getTaskName(), this::runTask);
 		} finally {
 			LOG.info("Completed {}, next scheduled at {}", getTaskName(), getNextExecutionTime());
 		}
 	}
 	
 	/**
-	 * Return the task name used in logging statements. This default implementation
+	 * Return the task name used in logging statements and metrics tags. This default implementation
 	 * returns the simple name of the concrete implementation class; subclasses may
 	 * override this default implementation.
 	 * @return
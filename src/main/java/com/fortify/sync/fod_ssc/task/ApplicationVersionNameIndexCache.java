@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.ApplicationVersionNameIndex;
+
+/**
+ * This class holds a long-lived {@link ApplicationVersionNameIndex} instance, avoiding
+ * the need to load all SSC application versions on every incremental {@link LinkReleasesTask} 
+ * run. {@link LinkReleasesTask} adds newly created application versions to the index, and
+ * the index is fully rebuilt from SSC if requested or if the configured rebuild interval 
+ * has passed, in order to pick up any application versions that were added, renamed or 
+ * removed directly on SSC. Non-incremental runs and full reconciliations always request
+ * a rebuild, so the index is only reused across runs if incremental linking is enabled.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ApplicationVersionNameIndexCache {
+	private static final Logger LOG = LoggerFactory.getLogger(ApplicationVersionNameIndexCache.class);
+	@Autowired private LinkReleasesTaskConfig config;
+	@Autowired private SSCAuthenticatingRestConnection sscConn;
+	private ApplicationVersionNameIndex index;
+	private long lastRebuild;
+	
+	/**
+	 * Get the current {@link ApplicationVersionNameIndex} instance, rebuilding it from
+	 * SSC if it hasn't been loaded yet, if a rebuild is requested, or if the configured
+	 * rebuild interval has passed.
+	 * @param rebuild
+	 * @return
+	 */
+	public synchronized ApplicationVersionNameIndex get(boolean rebuild) {
+		if ( rebuild || index==null || lastRebuild < System.currentTimeMillis() - config.getLinkedIdsRebuildIntervalMinutes()*1000*60 ) {
+			LOG.debug("Rebuilding SSC application version name index from SSC");
+			long rebuildTime = System.currentTimeMillis();
+			index = sscConn.api(SyncAPI.class).getApplicationVersionNameIndex();
+			lastRebuild = rebuildTime;
+		}
+		return index;
+	}
+}
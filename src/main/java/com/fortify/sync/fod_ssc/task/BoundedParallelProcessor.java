@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * This {@link Consumer} implementation passes each consumed item to a configured
+ * item {@link Consumer}, processing at most the configured number of items concurrently. 
+ * If the maximum concurrency is 1 or less, items are by default processed on the calling thread. 
+ * Otherwise, items are processed on a dedicated thread pool, and {@link #accept(Object)}
+ * blocks while all worker threads are busy, thereby avoiding unbounded queuing of items
+ * when used as the consumer for paged REST queries. Optionally, items can be processed
+ * on virtual threads if supported by the current Java version.
+ * 
+ * Instances must be closed after all items have been passed to {@link #accept(Object)};
+ * {@link #close()} waits for all outstanding items to be processed. As failures on worker
+ * threads are logged rather than propagated, callers can use {@link #getFailureCount()} 
+ * after closing this instance to check whether all items were processed successfully.
+ * 
+ * @author Ruud Senden
+ *
+ * @param <T>
+ */
+public final class BoundedParallelProcessor<T> implements Consumer<T>, AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(BoundedParallelProcessor.class);
+	private final String name;
+	private final Consumer<T> itemProcessor;
+	private final ExecutorService executor;
+	private final Semaphore permits;
+	private final AtomicInteger failureCount = new AtomicInteger();
+	
+	/**
+	 * Create a new instance for the given name (used for thread names), maximum
+	 * concurrency and item {@link Consumer}.
+	 * 
+	 * @param name
+	 * @param maxConcurrency
+	 * @param itemProcessor
+	 */
+	public BoundedParallelProcessor(String name, int maxConcurrency, Consumer<T> itemProcessor) {
+		this(name, maxConcurrency, maxConcurrency > 1, itemProcessor);
+	}
+	
+	/**
+	 * Create a new instance for the given name (used for thread names), maximum
+	 * concurrency and item {@link Consumer}. If useWorkerThreads is true, items
+	 * will always be processed on worker threads, even if maximum concurrency is 1.
+	 * 
+	 * @param name
+	 * @param maxConcurrency
+	 * @param useWorkerThreads
+	 * @param itemProcessor
+	 */
+	public BoundedParallelProcessor(String name, int maxConcurrency, boolean useWorkerThreads, Consumer<T> itemProcessor) {
+		this(name, maxConcurrency, useWorkerThreads, false, itemProcessor);
+	}
+	
+	/**
+	 * Create a new instance for the given name (used for thread names), maximum
+	 * concurrency and item {@link Consumer}. If useWorkerThreads is true, items
+	 * will always be processed on worker threads, even if maximum concurrency is 1.
+	 * If useVirtualThreads is true and supported by the current Java version, every 
+	 * item is processed on a new virtual thread rather than on a fixed pool of 
+	 * platform threads; the number of concurrently processed items is still limited 
+	 * to the given maximum concurrency. 
+	 * 
+	 * @param name
+	 * @param maxConcurrency
+	 * @param useWorkerThreads
+	 * @param useVirtualThreads
+	 * @param itemProcessor
+	 */
+	public BoundedParallelProcessor(String name, int maxConcurrency, boolean useWorkerThreads, boolean useVirtualThreads, Consumer<T> itemProcessor) {
+		this.name = name;
+		this.itemProcessor = itemProcessor;
+		if ( useWorkerThreads ) {
+			maxConcurrency = Math.max(1, maxConcurrency);
+			ExecutorService virtualThreadExecutor = useVirtualThreads ? VirtualThreads.newThreadPerTaskExecutor(name+"-") : null;
+			this.executor = virtualThreadExecutor!=null 
+					? virtualThreadExecutor 
+					: Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory(name+"-"));
+			this.permits = new Semaphore(maxConcurrency);
+		} else {
+			this.executor = null;
+			this.permits = null;
+		}
+	}
+	
+	/**
+	 * Process the given item, either directly or on one of our worker threads.
+	 * Any {@link RuntimeException} thrown by the item {@link Consumer} on a 
+	 * worker thread is logged, to allow other items to be processed.
+	 */
+	@Override
+	public void accept(T item) {
+		if ( executor==null ) {
+			itemProcessor.accept(item);
+		} else {
+			permits.acquireUninterruptibly();
+			try {
+				executor.execute(()->processAndRelease(item));
+			} catch ( RejectedExecutionException e ) {
+				permits.release();
+				throw e;
+			}
+		}
+	}
+
+	private final void processAndRelease(T item) {
+		try {
+			itemProcessor.accept(item);
+		} catch ( RuntimeException e ) {
+			failureCount.incrementAndGet();
+			LOG.error("Unexpected error in "+name+" worker", e);
+		} finally {
+			permits.release();
+		}
+	}
+	
+	/**
+	 * Get the number of items that failed to be processed on worker threads. Failures
+	 * when processing items on the calling thread are propagated to the caller instead.
+	 * @return
+	 */
+	public int getFailureCount() {
+		return failureCount.get();
+	}
+	
+	/**
+	 * Wait for all outstanding items to be processed, and shut down our worker threads.
+	 */
+	@Override
+	public void close() {
+		if ( executor!=null ) {
+			executor.shutdown();
+			try {
+				while ( !executor.awaitTermination(1, TimeUnit.MINUTES) ) {
+					LOG.debug("Waiting for {} workers to complete", name);
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -24,13 +24,29 @@
  ******************************************************************************/
 package com.fortify.sync.fod_ssc.task;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
@@ -48,21 +64,31 @@ import com.fortify.client.ssc.api.SSCApplicationVersionAttributeAPI;
 import com.fortify.client.ssc.api.SSCAttributeDefinitionAPI.SSCAttributeDefinitionHelper;
 import com.fortify.client.ssc.api.SSCIssueTemplateAPI.SSCIssueTemplateHelper;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.sync.fod_ssc.cluster.ClusterMembership;
+import com.fortify.sync.fod_ssc.cluster.ClusterMembership.Leadership;
+import com.fortify.sync.fod_ssc.config.ExecutionConfig;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.AbstractFoDQueryConfig;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.ConfigApplicationFilters;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.ConfigAutoCreate;
+import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.ConfigIncremental;
+import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.ConfigJobLinkReleasesSSC;
 import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig.ConfigReleaseFilters;
+import com.fortify.sync.fod_ssc.connection.EndpointConcurrencyLimiter;
+import com.fortify.sync.fod_ssc.connection.EndpointConcurrencyLimiter.Endpoint;
+import com.fortify.sync.fod_ssc.connection.fod.FoDRateLimitGovernor;
+import com.fortify.sync.fod_ssc.connection.fod.FoDRateLimitGovernor.Priority;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.ApplicationVersionNameIndex;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.LinkedVersionsAndReleasesIds;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncConfig;
+import com.fortify.sync.fod_ssc.expression.CompiledExpressionCache;
+import com.fortify.sync.fod_ssc.expression.FoDFilterParamTranslator;
+import com.fortify.sync.fod_ssc.state.SyncStateStore;
 import com.fortify.util.applier.ifblank.IfBlank;
 import com.fortify.util.rest.json.JSONMap;
 import com.fortify.util.rest.json.preprocessor.enrich.JSONMapEnrichWithValue;
-import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter.MatchMode;
-import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterSpEL;
 import com.fortify.util.spring.expression.SimpleExpression;
-import com.fortify.util.spring.expression.helper.DefaultExpressionHelper;
 
 /**
  * This task is responsible for automatically linking FoD releases to SSC application versions,
@@ -78,8 +104,17 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 	@Autowired private FoDAuthenticatingRestConnection fodConn;
 	@Autowired private SSCAuthenticatingRestConnection sscConn;
 	@Autowired private SSCAttributeDefinitionHelper attributeDefinitionHelper;
-	@Autowired private SSCIssueTemplateHelper issueTemplateHelper;
+	@Autowired private ObjectProvider<SSCIssueTemplateHelper> issueTemplateHelper;
 	@Autowired private IHasSyncableScanChecker hasSyncableScanChecker;
+	@Autowired private SyncStateStore syncStateStore;
+	@Autowired private FoDRateLimitGovernor fodRateLimitGovernor;
+	@Autowired private ApplicationVersionNameIndexCache applicationVersionNameIndexCache;
+	@Autowired private CompiledExpressionCache expressionCache;
+	@Autowired private ReleaseLinkingWatermark releaseLinkingWatermark;
+	@Autowired private LinkedIdsIndex linkedIdsIndex;
+	@Autowired private ClusterMembership clusterMembership;
+	@Autowired private ExecutionConfig executionConfig;
+	@Autowired private EndpointConcurrencyLimiter endpointConcurrencyLimiter;
 	
 	/**
 	 * Allow our superclass to access our configuration
@@ -90,34 +125,245 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 	}
 	
 	/**
-	 * This method is called by our superclass based on the configured schedule. This method
-	 * just constructs a new {@link FoDUnlinkedReleasesProcessor} instance that loads a
-	 * {@link LinkedVersionsAndReleasesIds} instance, and then defers the actual work to 
-	 * {@link FoDUnlinkedReleasesProcessor#processFoDApplications()}.
+	 * Parse all configured filter, attribute and description expressions once at startup, 
+	 * both to fail fast on invalid expressions and to avoid parsing expressions for every 
+	 * FoD application or release being processed.
+	 */
+	@PostConstruct
+	public void compileExpressions() {
+		compileFilterExpressions(config.getFod().getFilters().getApplication());
+		compileFilterExpressions(config.getFod().getFilters().getRelease());
+		ConfigJobLinkReleasesSSC sscConfig = config.getSsc();
+		compileTemplateExpression(sscConfig.getApplicationDescriptionExpression());
+		compileTemplateExpression(sscConfig.getVersionDescriptionExpression());
+		sscConfig.getAttributeExpressions().values().forEach(exprs->exprs.forEach(this::compileTemplateExpression));
+	}
+
+	private void compileFilterExpressions(AbstractFoDQueryConfig queryConfig) {
+		if ( ArrayUtils.isNotEmpty(queryConfig.getFilterExpressions()) ) {
+			for ( SimpleExpression expr : queryConfig.getFilterExpressions()) {
+				expressionCache.getExpression(expr.getExpressionString());
+			}
+		}
+	}
+	
+	private void compileTemplateExpression(String template) {
+		if ( template!=null ) {
+			expressionCache.getTemplateExpression(template);
+		}
+	}
+	
+	/**
+	 * This method is called by our superclass based on the configured schedule. If incremental
+	 * linking is disabled, this method just constructs a new {@link FoDUnlinkedReleasesProcessor} 
+	 * instance that loads a {@link LinkedVersionsAndReleasesIds} instance, and then defers the 
+	 * actual work to {@link FoDUnlinkedReleasesProcessor#processFoDApplications()}. If incremental
+	 * linking is enabled, the actual work is deferred to {@link #runIncrementalTask(ConfigIncremental)}.
+	 * If multiple instances have been configured, this task is skipped if another instance
+	 * currently holds the leadership provided by {@link ClusterMembership}.
 	 */
 	protected void runTask() {
-		new FoDUnlinkedReleasesProcessor().processFoDApplications();
+		try ( Leadership leadership = clusterMembership.tryAcquireLeadership() ) {
+			if ( leadership==null ) {
+				LOG.info("{} is being run by another instance; skipping this run", getTaskName());
+			} else {
+				ConfigIncremental incrementalConfig = config.getIncremental();
+				if ( !incrementalConfig.isEnabled() ) {
+					new FoDUnlinkedReleasesProcessor(true).processFoDApplications();
+				} else {
+					runIncrementalTask(incrementalConfig);
+				}
+			}
+		} catch ( IOException e ) {
+			LOG.warn("Error releasing leadership for "+getTaskName(), e);
+		}
+	}
+	
+	/**
+	 * This method first queries all FoD releases with only their id, application id, creation 
+	 * date and scan dates, to determine which FoD applications contain releases that were created 
+	 * or scanned since the watermark stored by {@link ReleaseLinkingWatermark}. Only these FoD
+	 * applications are then processed by {@link FoDUnlinkedReleasesProcessor}; if there are no
+	 * such applications, no further FoD or SSC requests are necessary. All applications are
+	 * processed if a full reconciliation is required, either because of the configured interval
+	 * or because the link configuration was changed. The configured FoD release filter and 
+	 * any pushed-down release filter expressions are applied to the initial query, to avoid 
+	 * loading releases that would never be linked. As FoD doesn't support date range filters
+	 * on releases, creation and scan dates are compared with the watermark client-side.
+	 * 
+	 * The watermark is only updated if all applications were processed successfully; if 
+	 * any application failed, the same changes are picked up again on the next run. Note 
+	 * that releases that started matching the configured FoD filter criteria without being 
+	 * created or scanned will only be picked up during the next full reconciliation.
+	 * 
+	 * @param incrementalConfig
+	 */
+	private final void runIncrementalTask(ConfigIncremental incrementalConfig) {
+		String configFingerprint = getLinkConfigFingerprint();
+		boolean fullReconciliation = releaseLinkingWatermark.isFullReconciliationRequired(configFingerprint, incrementalConfig.getFullReconciliationIntervalMinutes());
+		FoDReleaseChangeDetector changeDetector = new FoDReleaseChangeDetector(fullReconciliation ? null : releaseLinkingWatermark.getWatermark());
+		fodRateLimitGovernor.acquire(Priority.LOW);
+		ConfigReleaseFilters releaseFilters = config.getFod().getFilters().getRelease();
+		FoDReleasesQueryBuilder qb = fodConn.api(FoDReleaseAPI.class).queryReleases()
+			.preProcessor(fodRateLimitGovernor.pageMeter(Priority.LOW))
+			.paramFields(IfBlank.ERROR(), "releaseId", "applicationId", "releaseCreatedDate", "staticScanDate", "dynamicScanDate", "mobileScanDate");
+		addParamFilter(qb, releaseFilters);
+		addPushedDownFilterExpressions(qb, releaseFilters);
+		qb.build().processAll(changeDetector);
+		int failureCount = 0;
+		if ( fullReconciliation ) {
+			LOG.info("Performing full reconciliation of FoD releases");
+			FoDUnlinkedReleasesProcessor processor = new FoDUnlinkedReleasesProcessor(true);
+			processor.processFoDApplications();
+			failureCount = processor.getFailureCount();
+		} else if ( changeDetector.getChangedApplicationIds().isEmpty() ) {
+			LOG.debug("No FoD releases created or scanned since previous run");
+		} else {
+			LOG.debug("Processing {} FoD applications with releases created or scanned since previous run", changeDetector.getChangedApplicationIds().size());
+			FoDUnlinkedReleasesProcessor processor = new FoDUnlinkedReleasesProcessor(false);
+			processor.processFoDApplications(changeDetector.getChangedApplicationIds());
+			failureCount = processor.getFailureCount();
+		}
+		if ( failureCount>0 ) {
+			LOG.warn("Not updating release linking watermark as {} FoD applications failed to be processed; these will be retried on the next run", failureCount);
+		} else {
+			releaseLinkingWatermark.update(changeDetector.getNewWatermark(), fullReconciliation, configFingerprint);
+		}
+	}
+	
+	/**
+	 * Add the FoD 'filter' query parameter
+	 * @param qb
+	 * @param queryConfig
+	 */
+	private final void addParamFilter(IFoDEntityQueryBuilderParamFilter<?> qb, AbstractFoDQueryConfig queryConfig) {
+		qb.paramFilterAnd(IfBlank.SKIP(), queryConfig.getFodFilterParam());
+	}
+	
+	/**
+	 * If enabled, translate simple filter expressions into FoD 'filter' query
+	 * parameters using {@link FoDFilterParamTranslator}, to have FoD perform the 
+	 * bulk of the filtering. The original filter expressions are still applied 
+	 * client-side by {@link FoDUnlinkedReleasesProcessor}.
+	 * @param qb
+	 * @param queryConfig
+	 */
+	private final void addPushedDownFilterExpressions(IFoDEntityQueryBuilderParamFilter<?> qb, AbstractFoDQueryConfig queryConfig) {
+		if ( queryConfig.isPushDownFilterExpressions() && ArrayUtils.isNotEmpty(queryConfig.getFilterExpressions()) ) {
+			for ( SimpleExpression expr : queryConfig.getFilterExpressions()) {
+				FoDFilterParamTranslator.translate(expr.getExpressionString())
+					.forEach(fodFilterParam->qb.paramFilterAnd(IfBlank.SKIP(), fodFilterParam));
+			}
+		}
+	}
+	
+	/**
+	 * Get a fingerprint of all configuration properties that determine which FoD releases 
+	 * are linked. If this fingerprint changes, a full reconciliation is required.
+	 * 
+	 * @return
+	 */
+	private final String getLinkConfigFingerprint() {
+		ConfigApplicationFilters applicationFilters = config.getFod().getFilters().getApplication();
+		ConfigReleaseFilters releaseFilters = config.getFod().getFilters().getRelease();
+		ConfigJobLinkReleasesSSC sscConfig = config.getSsc();
+		return Integer.toHexString(Objects.hash(
+				applicationFilters.getFodFilterParam(), getExpressionStrings(applicationFilters),
+				releaseFilters.getFodFilterParam(), getExpressionStrings(releaseFilters),
+				sscConfig.isLinkOnlyIfSyncableScans(), Arrays.asList(sscConfig.getEnabledFoDScanTypes()),
+				sscConfig.getAutoCreateVersions().isEnabled()));
+	}
+	
+	private final List<String> getExpressionStrings(AbstractFoDQueryConfig queryConfig) {
+		List<String> result = new ArrayList<>();
+		if ( ArrayUtils.isNotEmpty(queryConfig.getFilterExpressions()) ) {
+			for ( SimpleExpression expr : queryConfig.getFilterExpressions()) {
+				result.add(expr.getExpressionString());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * {@link Consumer} implementation that determines the most recent creation or 
+	 * scan date for every consumed FoD release, collecting the application id's 
+	 * for releases that have been created or scanned since the given watermark.
+	 * 
+	 * @author Ruud Senden
+	 *
+	 */
+	private static final class FoDReleaseChangeDetector implements Consumer<JSONMap> {
+		private final Long watermark;
+		private final Set<String> changedApplicationIds = new LinkedHashSet<>();
+		private long newWatermark;
+		
+		public FoDReleaseChangeDetector(Long watermark) {
+			this.watermark = watermark;
+			this.newWatermark = watermark==null ? 0 : watermark;
+		}
+		
+		@Override
+		public void accept(JSONMap release) {
+			long lastModified = getLastModified(release);
+			newWatermark = Math.max(newWatermark, lastModified);
+			if ( watermark!=null && lastModified >= watermark ) {
+				changedApplicationIds.add(release.get("applicationId", String.class));
+			}
+		}
+		
+		private static final long getLastModified(JSONMap release) {
+			long result = getTime(release, "releaseCreatedDate");
+			for ( String field : SyncScansTask.FOD_SCAN_DATE_FIELDS ) {
+				result = Math.max(result, getTime(release, field));
+			}
+			return result;
+		}
+		
+		private static final long getTime(JSONMap release, String field) {
+			Date date = SyncScansTask.parseFoDDate(release.get(field, String.class));
+			return date==null ? 0 : date.getTime();
+		}
+		
+		public Set<String> getChangedApplicationIds() {
+			return changedApplicationIds;
+		}
+		
+		public long getNewWatermark() {
+			return newWatermark;
+		}
 	}
 
 	/**
 	 * This inner class processes applicable FoD releases that have not yet been linked
 	 * to SSC application versions, by optionally creating new SSC application versions 
 	 * and configuring the SSC application version to be synchronized with the 
-	 * corresponding FoD releases. 
+	 * corresponding FoD releases. Depending on configuration, FoD applications are 
+	 * processed either sequentially or in parallel by a {@link BoundedParallelProcessor}.
+	 * Linking and creating SSC application versions is synchronized per SSC application
+	 * name, to avoid concurrent workers creating the same SSC application or linking 
+	 * the same SSC application version.
 	 * 
 	 * @author Ruud Senden
 	 *
 	 */
 	private final class FoDUnlinkedReleasesProcessor {
 		private final LinkedVersionsAndReleasesIds linkedVersionsAndReleasesIds;
+		private final ApplicationVersionNameIndex applicationVersionNameIndex;
+		private final ConcurrentMap<String, ReentrantLock> applicationNameLocks = new ConcurrentHashMap<>();
+		private final AtomicInteger failureCount = new AtomicInteger();
 		
 		/**
 		 * Constructor to initialize our {@link LinkedVersionsAndReleasesIds} instance
 		 * used to look up which SSC application versions and FoD releases have already 
-		 * been linked before.
+		 * been linked before, as provided by {@link LinkedIdsIndex}, and our 
+		 * {@link ApplicationVersionNameIndex} used to look up SSC application versions 
+		 * matching FoD releases, as provided by {@link ApplicationVersionNameIndexCache}.
+		 * 
+		 * @param rebuildNameIndex Force the {@link ApplicationVersionNameIndex} to be rebuilt from SSC
 		 */
-		public FoDUnlinkedReleasesProcessor() {
-			this.linkedVersionsAndReleasesIds = sscConn.api(SyncAPI.class).getLinkedVersionsAndReleasesIds(attributeDefinitionHelper);
+		public FoDUnlinkedReleasesProcessor(boolean rebuildNameIndex) {
+			this.linkedVersionsAndReleasesIds = linkedIdsIndex.get();
+			this.applicationVersionNameIndex = applicationVersionNameIndexCache.get(rebuildNameIndex);
 		}
 		
 		/**
@@ -128,8 +374,11 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		 */
 		private final FoDApplicationsQueryBuilder getApplicationsQueryBuilder() {
 			ConfigApplicationFilters applicationFilters = config.getFod().getFilters().getApplication();
-			FoDApplicationsQueryBuilder qb = fodConn.api(FoDApplicationAPI.class).queryApplications().onDemandAll();
+			FoDApplicationsQueryBuilder qb = fodConn.api(FoDApplicationAPI.class).queryApplications()
+				.preProcessor(fodRateLimitGovernor.pageMeter(Priority.LOW))
+				.onDemandAll();
 			addParamFilter(qb, applicationFilters);
+			addPushedDownFilterExpressions(qb, applicationFilters);
 			addFilterExpressions(qb, applicationFilters);
 			return qb;
 		}
@@ -143,11 +392,13 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		private final FoDReleasesQueryBuilder getReleasesQueryBuilder(JSONMap application) {
 			ConfigReleaseFilters releaseFilters = config.getFod().getFilters().getRelease();
 			FoDReleasesQueryBuilder qb = fodConn.api(FoDReleaseAPI.class).queryReleases()
+				.preProcessor(fodRateLimitGovernor.pageMeter(Priority.LOW))
 				.onDemandAll()
 				.paramFilterAnd(IfBlank.ERROR(), "applicationId", application.get("applicationId", String.class))
 				.preProcessor(new JSONMapEnrichWithValue("application", application));
 			addNotYetLinkedFilter(qb);
 			addParamFilter(qb, releaseFilters);
+			addPushedDownFilterExpressions(qb, releaseFilters);
 			addFilterExpressions(qb, releaseFilters);
 			return qb;
 		}
@@ -155,25 +406,17 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		private final void addNotYetLinkedFilter(FoDReleasesQueryBuilder qb) {
 			qb.preProcessor(release->!linkedVersionsAndReleasesIds.getLinkedFoDReleaseIds().contains(release.get("releaseId", String.class)));
 		}
-
-		/**
-		 * Add the FoD 'filter' query parameter
-		 * @param qb
-		 * @param queryConfig
-		 */
-		private final void addParamFilter(IFoDEntityQueryBuilderParamFilter<?> qb, AbstractFoDQueryConfig queryConfig) {
-			qb.paramFilterAnd(IfBlank.SKIP(), queryConfig.getFodFilterParam());
-		}
 		
 		/**
-		 * Add the FoD client-side filter expressions if applicable
+		 * Add the FoD client-side filter expressions if applicable, using the
+		 * compiled expressions provided by {@link CompiledExpressionCache}
 		 * @param qb
 		 * @param queryConfig
 		 */
 		private final void addFilterExpressions(AbstractFoDEntityQueryBuilder<?> qb, AbstractFoDQueryConfig queryConfig) {
 			if ( ArrayUtils.isNotEmpty(queryConfig.getFilterExpressions()) ) {
 				for ( SimpleExpression expr : queryConfig.getFilterExpressions()) {
-					qb.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, expr));
+					qb.preProcessor(expressionCache.getFilter(expr.getExpressionString()));
 				}
 			}
 		}
@@ -182,22 +425,67 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		 * This method calls {@link #getApplicationsQueryBuilder()} to build an
 		 * {@link FoDApplicationsQueryBuilder} instance, then invokes the 
 		 * {@link #processFoDApplication(JSONMap)} method for each FoD application
-		 * loaded by this {@link FoDApplicationsQueryBuilder} instance.
+		 * loaded by this {@link FoDApplicationsQueryBuilder} instance, using up
+		 * to the configured number of concurrent workers. This method only returns
+		 * after all applications have been processed.
 		 */
 		private final void processFoDApplications() {
 			LOG.debug("Loading applications");
-			getApplicationsQueryBuilder().build().processAll(this::processFoDApplication);
+			processFoDApplications(getApplicationsQueryBuilder());
+		}
+		
+		/**
+		 * Similar to {@link #processFoDApplications()}, but only processes the FoD
+		 * applications with the given application id's. Applications are queried in
+		 * batches, using an FoD filter like <code>applicationId:1|2|3</code> in 
+		 * addition to the configured application filters.
+		 * 
+		 * @param applicationIds
+		 */
+		private final void processFoDApplications(Collection<String> applicationIds) {
+			LOG.debug("Loading applications {}", applicationIds);
+			List<String> applicationIdsList = new ArrayList<>(applicationIds);
+			int batchSize = Math.max(1, config.getIncremental().getApplicationIdBatchSize());
+			for ( int i = 0 ; i < applicationIdsList.size() ; i+=batchSize ) {
+				List<String> batch = applicationIdsList.subList(i, Math.min(i+batchSize, applicationIdsList.size()));
+				processFoDApplications(getApplicationsQueryBuilder()
+						.paramFilterAnd(IfBlank.ERROR(), "applicationId", String.join("|", batch)));
+			}
+		}
+		
+		private final void processFoDApplications(FoDApplicationsQueryBuilder qb) {
+			fodRateLimitGovernor.acquire(Priority.LOW);
+			BoundedParallelProcessor<JSONMap> processor = new BoundedParallelProcessor<>("linkReleases", config.getMaxConcurrentApplications(), config.getMaxConcurrentApplications() > 1, executionConfig.isVirtualThreads(), this::processFoDApplication);
+			try {
+				qb.build().processAll(processor);
+			} finally {
+				processor.close();
+				failureCount.addAndGet(processor.getFailureCount());
+			}
+		}
+		
+		/**
+		 * @return The number of FoD applications that failed to be processed on worker threads
+		 */
+		public int getFailureCount() {
+			return failureCount.get();
 		}
 		
 		/**
 		 * This method calls {@link #getReleasesQueryBuilder()} to build an
 		 * {@link FoDReleasesQueryBuilder} instance, then invokes the 
 		 * {@link #processFoDRelease(JSONMap)} method for each FoD release
-		 * loaded by this {@link FoDReleasesQueryBuilder} instance.
+		 * loaded by this {@link FoDReleasesQueryBuilder} instance. Releases
+		 * are loaded before processing, to avoid holding on to an FoD request
+		 * permit from {@link EndpointConcurrencyLimiter} while processing
+		 * releases.
 		 */
 		private final void processFoDApplication(JSONMap application) {
 			LOG.debug("Loading releases for application "+application.get("applicationName", String.class));
-			getReleasesQueryBuilder(application).build().processAll(this::processUnlinkedFoDRelease);
+			fodRateLimitGovernor.acquire(Priority.LOW);
+			List<JSONMap> releases = new ArrayList<>();
+			endpointConcurrencyLimiter.run(Endpoint.FOD, ()->getReleasesQueryBuilder(application).build().processAll(releases::add));
+			releases.forEach(this::processUnlinkedFoDRelease);
 		}
 	
 		/**
@@ -217,14 +505,34 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 			if ( config.getSsc().isLinkOnlyIfSyncableScans() && !hasSyncableScans(release) ) {
 				LOG.debug("Ignoring FoD release {}:{} as it doesn't have syncable scans", fodApplicationName, fodReleaseWithMicroserviceName);
 			} else {
-				JSONMap sscApplicationVersion = sscConn.api(SSCApplicationVersionAPI.class).getApplicationVersionByName(fodApplicationName, fodReleaseWithMicroserviceName);
-				if ( sscApplicationVersion==null ) {
-					processUnlinkedFoDReleaseWithoutMatchingSSCApplicationVersion(release);
-				} else {
-					processUnlinkedFoDReleaseWithMatchingSSCApplicationVersion(release, sscApplicationVersion);
+				ReentrantLock applicationNameLock = getApplicationNameLock(fodApplicationName);
+				applicationNameLock.lock();
+				try {
+					JSONMap sscApplicationVersion = applicationVersionNameIndex.get(fodApplicationName, fodReleaseWithMicroserviceName);
+					if ( sscApplicationVersion==null ) {
+						processUnlinkedFoDReleaseWithoutMatchingSSCApplicationVersion(release);
+					} else {
+						processUnlinkedFoDReleaseWithMatchingSSCApplicationVersion(release, sscApplicationVersion);
+					}
+				} finally {
+					applicationNameLock.unlock();
 				}
 			}
 		}
+		
+		/**
+		 * Get the lock for the given SSC application name. As SSC application
+		 * names are case-insensitive, the same lock is returned independent of
+		 * case. A {@link ReentrantLock} rather than a monitor is used, as the lock is 
+		 * held during SSC requests, which would otherwise pin virtual threads to their 
+		 * carrier thread.
+		 * 
+		 * @param sscApplicationName
+		 * @return
+		 */
+		private final ReentrantLock getApplicationNameLock(String sscApplicationName) {
+			return applicationNameLocks.computeIfAbsent(StringUtils.lowerCase(sscApplicationName), k->new ReentrantLock());
+		}
 
 		private final String getFoDReleaseWithMicroserviceName(JSONMap release) {
 			String fodReleaseName = getFoDReleaseName(release);
@@ -276,7 +584,17 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 
 		/**
 		 * Create a new SSC application version with the given application and version name, 
-		 * and linked to the given FoD release id.
+		 * and linked to the given FoD release id. If creating the application version fails,
+		 * for example because it was created directly on SSC after our {@link ApplicationVersionNameIndex}
+		 * was loaded, this method looks up the application version by name on SSC. If found, 
+		 * the existing application version is added to the index and linked instead; otherwise
+		 * the original exception is rethrown. Note that creating takes two SSC round trips:
+		 * the application version is created and committed first (with only the attributes
+		 * required by SSC being added automatically), after which the sync configuration and
+		 * configurable attributes are set through {@link #updateApplicationVersionAttributes(String, JSONMap)}.
+		 * Passing these attributes to the create request would cause the application version
+		 * to remain uncommitted if any of the best-effort configurable attributes are invalid, 
+		 * without the option to fall back to only setting the sync configuration.
 		 *  
 		 * @param sscApplicationName
 		 * @param sscVersionName
@@ -284,26 +602,58 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		 */
 		private void createLinkedSSCApplicationVersion(String sscApplicationName, String sscVersionName, JSONMap fodRelease) {
 			ConfigAutoCreate autoCreateVersionsConfig = config.getSsc().getAutoCreateVersions();
-			String applicationVersionId = sscConn.api(SSCApplicationVersionAPI.class).createApplicationVersion()
-				.withAttributeDefinitionHelper(attributeDefinitionHelper)
-				.withIssueTemplateHelper(issueTemplateHelper)
-				.applicationName(sscApplicationName).versionName(sscVersionName)
-				.applicationDescription(getSSCApplicationDescription(fodRelease))
-				.versionDescription(getSSCVersionDescription(fodRelease))
-				.autoAddRequiredAttributes(true)
-				.issueTemplateName(autoCreateVersionsConfig.getIssueTemplateName())
-				.execute();
-			// We update application version attributes separately. to avoid uncommitted application
-			// versions in case of any errors.
+			String applicationVersionId;
+			try {
+				applicationVersionId = endpointConcurrencyLimiter.call(Endpoint.SSC, ()->sscConn.api(SSCApplicationVersionAPI.class).createApplicationVersion()
+					.withAttributeDefinitionHelper(attributeDefinitionHelper)
+					.withIssueTemplateHelper(issueTemplateHelper.getObject())
+					.applicationName(sscApplicationName).versionName(sscVersionName)
+					.applicationDescription(getSSCApplicationDescription(fodRelease))
+					.versionDescription(getSSCVersionDescription(fodRelease))
+					.autoAddRequiredAttributes(true)
+					.issueTemplateName(autoCreateVersionsConfig.getIssueTemplateName())
+					.execute());
+			} catch (RuntimeException e) {
+				JSONMap sscApplicationVersion = getExistingSSCApplicationVersion(sscApplicationName, sscVersionName, e);
+				if ( sscApplicationVersion==null ) { throw e; }
+				LOG.debug("SSC application version {}:{} already exists on SSC; linking existing application version", sscApplicationName, sscVersionName);
+				applicationVersionNameIndex.accept(sscApplicationVersion);
+				processUnlinkedFoDReleaseWithMatchingSSCApplicationVersion(fodRelease, sscApplicationVersion);
+				return;
+			}
+			applicationVersionNameIndex.add(applicationVersionId, sscApplicationName, sscVersionName);
+			// We update application version attributes separately, to avoid uncommitted application
+			// versions in case of any errors; see method JavaDoc.
 			updateApplicationVersionAttributes(applicationVersionId, fodRelease);
 		}
 
+		/**
+		 * Look up the SSC application version with the given application and version name 
+		 * on SSC, after creating this application version failed with the given exception.
+		 * Any errors during this look-up are added as suppressed exceptions to the given 
+		 * exception, in which case this method returns null.
+		 * 
+		 * @param sscApplicationName
+		 * @param sscVersionName
+		 * @param createException
+		 * @return
+		 */
+		private JSONMap getExistingSSCApplicationVersion(String sscApplicationName, String sscVersionName, RuntimeException createException) {
+			try {
+				return endpointConcurrencyLimiter.call(Endpoint.SSC, 
+						()->sscConn.api(SyncAPI.class).getApplicationVersionByName(sscApplicationName, sscVersionName));
+			} catch (RuntimeException e) {
+				createException.addSuppressed(e);
+				return null;
+			}
+		}
+
 		private String getSSCVersionDescription(JSONMap fodRelease) {
-			return DefaultExpressionHelper.get().evaluateTemplateExpression(fodRelease, config.getSsc().getVersionDescriptionExpression(), String.class);
+			return expressionCache.evaluateTemplateExpression(fodRelease, config.getSsc().getVersionDescriptionExpression(), String.class);
 		}
 
 		private String getSSCApplicationDescription(JSONMap fodRelease) {
-			return DefaultExpressionHelper.get().evaluateTemplateExpression(fodRelease, config.getSsc().getApplicationDescriptionExpression(), String.class);
+			return expressionCache.evaluateTemplateExpression(fodRelease, config.getSsc().getApplicationDescriptionExpression(), String.class);
 		}
 
 		/**
@@ -326,23 +676,52 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 			
 		}
 
+		/**
+		 * Update the sync configuration and configurable attributes for the given SSC 
+		 * application version in a single SSC request. As setting configurable attributes
+		 * is considered a 'best effort' operation, we fall back to updating only the sync
+		 * configuration if evaluating the configurable attribute expressions or the 
+		 * combined update fails.
+		 * 
+		 * @param sscApplicationVersionId
+		 * @param release
+		 */
 		private void updateApplicationVersionAttributes(String sscApplicationVersionId, JSONMap release) {
-			SSCApplicationVersionAttributeAPI attrApi = sscConn.api(SSCApplicationVersionAttributeAPI.class);
-			attrApi.updateApplicationVersionAttributes(sscApplicationVersionId)
+			SyncConfig syncConfig = getSyncConfig(getFoDReleaseId(release));
+			MultiValueMap<String, Object> configurableAttributesMap = getConfigurableAttributesMapOrEmpty(release);
+			if ( configurableAttributesMap.isEmpty() ) {
+				updateApplicationVersionAttributes(sscApplicationVersionId, syncConfig.asAttributesMap());
+			} else {
+				// Sync configuration attributes are added last, so configurable attributes can't override them
+				MultiValueMap<String, Object> combinedAttributesMap = new LinkedMultiValueMap<>();
+				combinedAttributesMap.addAll(configurableAttributesMap);
+				combinedAttributesMap.putAll(syncConfig.asAttributesMap());
+				try {
+					updateApplicationVersionAttributes(sscApplicationVersionId, combinedAttributesMap);
+				} catch (Exception e) {
+					LOG.warn("Error updating SSC application version with configurable attributes; updating sync configuration only", e);
+					// Use a fresh attributes map that doesn't share any state with the failed request
+					updateApplicationVersionAttributes(sscApplicationVersionId, syncConfig.asAttributesMap());
+				}
+			}
+			syncStateStore.putSyncConfig(sscApplicationVersionId, syncConfig);
+			linkedIdsIndex.addLink(sscApplicationVersionId, syncConfig.getFodReleaseId());
+		}
+		
+		private void updateApplicationVersionAttributes(String sscApplicationVersionId, MultiValueMap<String, Object> attributesMap) {
+			endpointConcurrencyLimiter.run(Endpoint.SSC, ()->sscConn.api(SSCApplicationVersionAttributeAPI.class).updateApplicationVersionAttributes(sscApplicationVersionId)
 				.withAttributeDefinitionHelper(attributeDefinitionHelper)
-				.byNameOrId(getSyncConfigAttributesMap(getFoDReleaseId(release)))
-				.execute();
+				.byNameOrId(attributesMap)
+				.execute());
+		}
+		
+		private MultiValueMap<String, Object> getConfigurableAttributesMapOrEmpty(JSONMap release) {
 			try {
-				MultiValueMap<String, Object> configurableAttributesMap = getConfigurableAttributesMap(release);
-				if ( !configurableAttributesMap.isEmpty() ) {
-					attrApi.updateApplicationVersionAttributes(sscApplicationVersionId)
-						.withAttributeDefinitionHelper(attributeDefinitionHelper)
-						.byNameOrId(configurableAttributesMap)
-						.execute();
-				}
+				return getConfigurableAttributesMap(release);
 			} catch (Exception e) {
 				// We consider this a 'best effort' operation, so just log a warning
-				LOG.warn("Error updating SSC application version with configurable attributes", e);
+				LOG.warn("Error evaluating configurable attributes for SSC application version", e);
+				return new LinkedMultiValueMap<>();
 			}
 		}
 
@@ -354,7 +733,7 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 
 		private void addConfigurableAttributeEntry(MultiValueMap<String, Object> result, Entry<String, List<String>> entry, JSONMap release) {
 			for ( String expr : entry.getValue() ) {
-				Object value = DefaultExpressionHelper.get().evaluateTemplateExpression(release, expr, Object.class);
+				Object value = expressionCache.evaluateTemplateExpression(release, expr, Object.class);
 				if ( value!=null ) {
 					result.add(entry.getKey(), value);
 				}
@@ -362,14 +741,13 @@ public class LinkReleasesTask extends AbstractScheduledTask<LinkReleasesTaskConf
 		}
 
 		/**
-		 * Get the SSC application version attributes map representing the {@link SyncConfig}
-		 * properties.
+		 * Get the {@link SyncConfig} for linking to the given FoD release id.
 		 * 
 		 * @param fodReleaseId
 		 * @return
 		 */
-		private final MultiValueMap<String, Object> getSyncConfigAttributesMap(String fodReleaseId) {
-			return new SyncConfig(fodReleaseId, config.getSsc().getEnabledFoDScanTypes()).asAttributesMap();
+		private final SyncConfig getSyncConfig(String fodReleaseId) {
+			return new SyncConfig(fodReleaseId, config.getSsc().getEnabledFoDScanTypes());
 		}
 	}
 	
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.client.ssc.api.SSCAttributeDefinitionAPI.SSCAttributeDefinitionHelper;
+import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.LinkedVersionsAndReleasesIds;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncData;
+
+/**
+ * This class holds a long-lived {@link LinkedVersionsAndReleasesIds} instance, avoiding
+ * the need to load all SSC application versions with their attribute values on every
+ * {@link LinkReleasesTask} run. The index is maintained incrementally:
+ * <ul>
+ *  <li>{@link LinkReleasesTask} adds new links to the index through {@link #addLink(String, String)}</li>
+ *  <li>{@link SyncScansTask} replaces the index contents through {@link #reload(Supplier)} 
+ *      whenever it loads the linked application versions from SSC</li>
+ *  <li>The index is fully rebuilt from SSC if the configured rebuild interval has passed, 
+ *      in order to pick up any links that were added or removed directly on SSC</li>
+ * </ul>
+ * As both tasks may run concurrently, any links added while {@link SyncScansTask} is loading
+ * the linked application versions from SSC are recorded, and merged into the reloaded index
+ * contents. Otherwise, these links would be lost if the SSC page-through had already passed
+ * the newly linked application versions.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class LinkedIdsIndex {
+	private static final Logger LOG = LoggerFactory.getLogger(LinkedIdsIndex.class);
+	@Autowired private LinkReleasesTaskConfig config;
+	@Autowired private SSCAuthenticatingRestConnection sscConn;
+	@Autowired private SSCAttributeDefinitionHelper attributeDefinitionHelper;
+	private final List<LinkedVersionsAndReleasesIds> linksAddedDuringReloads = new ArrayList<>();
+	private LinkedVersionsAndReleasesIds linkedIds;
+	private long lastRebuild;
+	
+	/**
+	 * Get the current {@link LinkedVersionsAndReleasesIds} instance, rebuilding it from
+	 * SSC if it hasn't been loaded yet or the configured rebuild interval has passed.
+	 * @return
+	 */
+	public synchronized LinkedVersionsAndReleasesIds get() {
+		if ( linkedIds==null || lastRebuild < System.currentTimeMillis() - config.getLinkedIdsRebuildIntervalMinutes()*1000*60 ) {
+			LOG.debug("Rebuilding linked SSC application version and FoD release id's from SSC");
+			long rebuildTime = System.currentTimeMillis();
+			linkedIds = sscConn.api(SyncAPI.class).getLinkedVersionsAndReleasesIds(attributeDefinitionHelper);
+			lastRebuild = rebuildTime;
+		}
+		return linkedIds;
+	}
+	
+	/**
+	 * Get the id's of the SSC application versions that are linked to any of the given 
+	 * FoD release id's according to the current index contents, rebuilding the index 
+	 * from SSC if necessary as described in {@link #get()}. 
+	 * 
+	 * @param fodReleaseIds
+	 * @return
+	 */
+	public Set<String> getLinkedSSCApplicationVersionIds(Collection<String> fodReleaseIds) {
+		LinkedVersionsAndReleasesIds currentLinkedIds = get();
+		Set<String> result = new LinkedHashSet<>();
+		for ( String fodReleaseId : fodReleaseIds ) {
+			Set<String> sscApplicationVersionIds = currentLinkedIds.getLinkedSSCApplicationVersionIdsByFoDReleaseId().get(fodReleaseId);
+			if ( sscApplicationVersionIds!=null ) { result.addAll(sscApplicationVersionIds); }
+		}
+		return result;
+	}
+	
+	/**
+	 * Invoke the given loader, which must return the {@link SyncData} instances for all 
+	 * SSC application versions that are currently linked, as loaded from SSC, and replace 
+	 * the index contents with the loaded {@link SyncData} instances. Any links added through
+	 * {@link #addLink(String, String)} while the loader is running are merged into the new 
+	 * index contents. The loader is invoked without holding our monitor, so other threads 
+	 * can continue to look up and add links while loading.
+	 * 
+	 * @param loader
+	 * @return The {@link SyncData} instances returned by the given loader
+	 */
+	public <C extends Collection<SyncData>> C reload(Supplier<C> loader) {
+		long rebuildTime = System.currentTimeMillis();
+		LinkedVersionsAndReleasesIds linksAddedDuringReload = new LinkedVersionsAndReleasesIds();
+		synchronized (this) {
+			linksAddedDuringReloads.add(linksAddedDuringReload);
+		}
+		try {
+			C syncDataCollection = loader.get();
+			synchronized (this) {
+				LinkedVersionsAndReleasesIds newLinkedIds = new LinkedVersionsAndReleasesIds();
+				syncDataCollection.forEach(newLinkedIds);
+				newLinkedIds.addAll(linksAddedDuringReload);
+				linkedIds = newLinkedIds;
+				lastRebuild = rebuildTime;
+			}
+			return syncDataCollection;
+		} finally {
+			synchronized (this) {
+				// LinkedVersionsAndReleasesIds implements equals() by value, so we remove by identity
+				linksAddedDuringReloads.removeIf(l->l==linksAddedDuringReload);
+			}
+		}
+	}
+	
+	/**
+	 * Add the given link to the index if the index has already been loaded, and record
+	 * the link for any reloads that are currently in progress.
+	 * @param sscApplicationVersionId
+	 * @param fodReleaseId
+	 */
+	public synchronized void addLink(String sscApplicationVersionId, String fodReleaseId) {
+		if ( linkedIds!=null ) {
+			linkedIds.addLink(sscApplicationVersionId, fodReleaseId);
+		}
+		linksAddedDuringReloads.forEach(l->l.addLink(sscApplicationVersionId, fodReleaseId));
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.state.SyncStateStore;
+
+/**
+ * This class keeps track of the high-water mark for incremental release linking,
+ * i.e. the most recent FoD release creation or scan date seen during the previous
+ * {@link LinkReleasesTask} run, together with the time of the last full reconciliation
+ * and a fingerprint of the link configuration used for that reconciliation.
+ * 
+ * If the {@link SyncStateStore} is enabled, this information is persisted in the
+ * store, so incremental linking can continue after application restarts. Otherwise,
+ * this information is kept in memory only, and the first run after startup will
+ * always be a full reconciliation.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ReleaseLinkingWatermark {
+	private static final String MAP_RELEASE_LINKING_WATERMARK = "releaseLinkingWatermark";
+	private static final String KEY_WATERMARK = "watermark";
+	private static final String KEY_LAST_FULL_RECONCILIATION = "lastFullReconciliation";
+	private static final String KEY_CONFIG_FINGERPRINT = "configFingerprint";
+	@Autowired private SyncStateStore syncStateStore;
+	private Map<String, String> values;
+	
+	/**
+	 * Initialize the values map, either from our {@link SyncStateStore}
+	 * or in-memory.
+	 */
+	@PostConstruct
+	public void init() {
+		this.values = syncStateStore.isEnabled() 
+				? syncStateStore.openMap(MAP_RELEASE_LINKING_WATERMARK) 
+				: new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Check whether a full reconciliation is required, either because no full 
+	 * reconciliation has been performed yet, the given interval has passed since 
+	 * the last full reconciliation, or the link configuration has changed.
+	 * 
+	 * @param configFingerprint
+	 * @param fullReconciliationIntervalMinutes
+	 * @return
+	 */
+	public boolean isFullReconciliationRequired(String configFingerprint, long fullReconciliationIntervalMinutes) {
+		String lastFullReconciliation = values.get(KEY_LAST_FULL_RECONCILIATION);
+		return lastFullReconciliation==null 
+				|| values.get(KEY_WATERMARK)==null
+				|| !configFingerprint.equals(values.get(KEY_CONFIG_FINGERPRINT))
+				|| Long.parseLong(lastFullReconciliation) < System.currentTimeMillis() - fullReconciliationIntervalMinutes*1000*60;
+	}
+	
+	/**
+	 * @return The current watermark (milliseconds since epoch), or null if not available
+	 */
+	public Long getWatermark() {
+		String watermark = values.get(KEY_WATERMARK);
+		return watermark==null ? null : Long.valueOf(watermark);
+	}
+	
+	/**
+	 * Update the watermark after a successful run. 
+	 * 
+	 * @param watermark
+	 * @param fullReconciliation
+	 * @param configFingerprint
+	 */
+	public void update(long watermark, boolean fullReconciliation, String configFingerprint) {
+		values.put(KEY_WATERMARK, String.valueOf(watermark));
+		if ( fullReconciliation ) {
+			values.put(KEY_LAST_FULL_RECONCILIATION, String.valueOf(System.currentTimeMillis()));
+			values.put(KEY_CONFIG_FINGERPRINT, configFingerprint);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig;
+import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig.ConfigAdaptivePolling;
+import com.fortify.sync.fod_ssc.state.SyncStateStore;
+import com.fortify.util.rest.json.JSONMap;
+
+/**
+ * This class keeps track of the next-check time for every FoD release linked to an
+ * SSC application version, allowing {@link SyncScansTask} to only check releases 
+ * that are due. Releases for which any scan date has changed since the previous check 
+ * are due again on the next run, whereas the check interval for releases without 
+ * scan activity is doubled after every check, up to the configured maximum.
+ * 
+ * Entries are stored as <code>nextCheck|intervalMinutes|scanDates</code> strings, keyed 
+ * by FoD release id. If the {@link SyncStateStore} is enabled, entries are persisted 
+ * in the store; otherwise they are kept in memory only.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ReleasePollingSchedule {
+	private static final String MAP_RELEASE_POLLING_SCHEDULE = "releasePollingSchedule";
+	@Autowired private SyncScansTaskConfig config;
+	@Autowired private SyncStateStore syncStateStore;
+	private Map<String, String> entries;
+	
+	/**
+	 * Initialize the entries map, either from our {@link SyncStateStore}
+	 * or in-memory.
+	 */
+	@PostConstruct
+	public void init() {
+		this.entries = syncStateStore.isEnabled() 
+				? syncStateStore.openMap(MAP_RELEASE_POLLING_SCHEDULE) 
+				: new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * @return true if adaptive polling is enabled, false otherwise
+	 */
+	public boolean isEnabled() {
+		return config.getAdaptivePolling().isEnabled();
+	}
+	
+	/**
+	 * Check whether the given FoD release is due to be checked for new scans.
+	 * Releases that were never checked before are always due.
+	 * 
+	 * @param fodReleaseId
+	 * @return
+	 */
+	public boolean isDue(String fodReleaseId) {
+		String entry = entries.get(fodReleaseId);
+		return entry==null || Long.parseLong(entry.split("\\|", 3)[0]) <= System.currentTimeMillis();
+	}
+	
+	/**
+	 * Update the polling schedule for the given FoD release, based on whether any of 
+	 * its scan dates have changed since the previous check.
+	 * 
+	 * @param fodRelease
+	 */
+	public void update(JSONMap fodRelease) {
+		ConfigAdaptivePolling pollingConfig = config.getAdaptivePolling();
+		String fodReleaseId = fodRelease.get("releaseId", String.class);
+		String scanDates = SyncScansTask.getFoDScanDates(fodRelease);
+		String entry = entries.get(fodReleaseId);
+		long intervalMinutes = 0;
+		if ( entry!=null ) {
+			String[] elts = entry.split("\\|", 3);
+			if ( scanDates.equals(elts[2]) ) {
+				long previousIntervalMinutes = Long.parseLong(elts[1]);
+				intervalMinutes = Math.min(pollingConfig.getMaxIntervalMinutes(), 
+						previousIntervalMinutes==0 ? pollingConfig.getInitialBackoffMinutes() : previousIntervalMinutes*2);
+			}
+		}
+		long nextCheck = System.currentTimeMillis() + intervalMinutes*1000*60;
+		entries.put(fodReleaseId, nextCheck+"|"+intervalMinutes+"|"+scanDates);
+	}
+	
+	/**
+	 * Remove the entries for any FoD releases that are no longer linked.
+	 * 
+	 * @param linkedFoDReleaseIds
+	 */
+	public void retainAll(Collection<String> linkedFoDReleaseIds) {
+		List<String> unlinkedFoDReleaseIds = entries.keySet().stream()
+				.filter(fodReleaseId->!linkedFoDReleaseIds.contains(fodReleaseId))
+				.collect(Collectors.toList());
+		unlinkedFoDReleaseIds.forEach(entries::remove);
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.config.FoDWebhookConfig;
+
+/**
+ * This class queues FoD releases for which a scan-completed event has been received,
+ * and synchronizes these releases through {@link IFoDReleasesSyncer#syncFoDReleases(Collection)}
+ * (implemented by {@link SyncScansTask}) on a dedicated worker thread. Releases that 
+ * are queued while the worker is busy are combined into a single targeted sync.
+ * 
+ * Events that include a scan id are deduplicated: an event is ignored if an event with
+ * the same release id and scan id is already waiting to be synchronized, or has been 
+ * successfully synchronized within the configured deduplication window. Events are 
+ * only recorded as synchronized after a successful sync, so redeliveries of events 
+ * for which synchronization failed will trigger a new sync. Events without a scan id
+ * can't be distinguished from events for other scans, so these are never ignored.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ScanCompletedEventQueue {
+	private static final Logger LOG = LoggerFactory.getLogger(ScanCompletedEventQueue.class);
+	@Autowired private FoDWebhookConfig config;
+	@Autowired private IFoDReleasesSyncer fodReleasesSyncer;
+	private final Map<String, Long> syncedEvents = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> pendingEventKeysByReleaseId = new LinkedHashMap<>();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("scanCompletedEvents-"));
+	
+	/**
+	 * Shut down our worker thread
+	 */
+	@PreDestroy
+	public void preDestroy() {
+		executor.shutdown();
+	}
+	
+	/**
+	 * Enqueue the given FoD release id for synchronization, unless the given scan id 
+	 * is not blank, and an event with the same release id and scan id is either still
+	 * pending, or was successfully synchronized within the configured deduplication 
+	 * window.
+	 * 
+	 * @param fodReleaseId
+	 * @param scanId may be null
+	 * @return true if the release was queued, false if the event was a duplicate
+	 */
+	public boolean enqueue(String fodReleaseId, String scanId) {
+		String eventKey = StringUtils.isBlank(scanId) ? null : fodReleaseId+":"+scanId;
+		if ( eventKey!=null && isRecentlySynced(eventKey) ) {
+			LOG.debug("Ignoring duplicate scan-completed event for FoD release id {}, scan id {}", fodReleaseId, scanId);
+			return false;
+		}
+		synchronized (pendingEventKeysByReleaseId) {
+			Set<String> pendingEventKeys = pendingEventKeysByReleaseId.get(fodReleaseId);
+			if ( pendingEventKeys==null ) {
+				pendingEventKeys = new HashSet<>();
+				pendingEventKeysByReleaseId.put(fodReleaseId, pendingEventKeys);
+				if ( pendingEventKeysByReleaseId.size()==1 ) {
+					executor.execute(this::syncPendingReleases);
+				}
+			} else if ( eventKey!=null && pendingEventKeys.contains(eventKey) ) {
+				LOG.debug("Ignoring duplicate scan-completed event for FoD release id {}, scan id {}", fodReleaseId, scanId);
+				return false;
+			}
+			if ( eventKey!=null ) { pendingEventKeys.add(eventKey); }
+		}
+		return true;
+	}
+	
+	private final boolean isRecentlySynced(String eventKey) {
+		long windowStart = System.currentTimeMillis() - config.getDeduplicationWindowMinutes()*1000*60;
+		Long syncedAt = syncedEvents.get(eventKey);
+		if ( syncedAt!=null && syncedAt < windowStart ) {
+			syncedEvents.remove(eventKey, syncedAt);
+			return false;
+		}
+		return syncedAt!=null;
+	}
+	
+	/**
+	 * Synchronize all currently pending FoD releases. On success, all pending events
+	 * are recorded as synchronized, and any expired events are removed.
+	 */
+	private final void syncPendingReleases() {
+		Map<String, Set<String>> pendingEvents;
+		synchronized (pendingEventKeysByReleaseId) {
+			pendingEvents = new LinkedHashMap<>(pendingEventKeysByReleaseId);
+			pendingEventKeysByReleaseId.clear();
+		}
+		Set<String> fodReleaseIds = pendingEvents.keySet();
+		try {
+			LOG.info("Synchronizing FoD release id's {} based on scan-completed events", fodReleaseIds);
+			fodReleasesSyncer.syncFoDReleases(fodReleaseIds);
+			long now = System.currentTimeMillis();
+			long windowStart = now - config.getDeduplicationWindowMinutes()*1000*60;
+			syncedEvents.values().removeIf(syncedAt->syncedAt < windowStart);
+			pendingEvents.values().forEach(eventKeys->eventKeys.forEach(eventKey->syncedEvents.put(eventKey, now)));
+		} catch (RuntimeException e) {
+			LOG.error("Error synchronizing FoD release id's "+fodReleaseIds, e);
+		}
+	}
+}
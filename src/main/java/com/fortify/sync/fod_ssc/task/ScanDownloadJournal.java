@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fortify.sync.fod_ssc.state.SyncStateStore;
+
+import lombok.Data;
+
+/**
+ * This class keeps track of scans that have been downloaded from FoD, but not yet
+ * successfully uploaded to SSC. Entries are keyed by SSC application version id, 
+ * scan type and FoD scan date, and contain the location and SHA-256 hash of the 
+ * downloaded scan file. This allows a subsequent sync run to reuse a previously 
+ * downloaded scan if the SSC upload failed, rather than downloading the same scan
+ * from FoD again.
+ * 
+ * If the {@link SyncStateStore} is enabled, journal entries are persisted in the
+ * store, so they survive application restarts. Otherwise, journal entries are 
+ * kept in memory only.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Component
+public class ScanDownloadJournal {
+	private static final String MAP_SCAN_DOWNLOAD_JOURNAL = "scanDownloadJournal";
+	@Autowired private SyncStateStore syncStateStore;
+	private ConcurrentMap<String, String> entries;
+	
+	/**
+	 * Initialize the journal entries map, either from our {@link SyncStateStore}
+	 * or in-memory.
+	 */
+	@PostConstruct
+	public void init() {
+		this.entries = syncStateStore.isEnabled() 
+				? syncStateStore.openMap(MAP_SCAN_DOWNLOAD_JOURNAL) 
+				: new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Get the journal entry for the given SSC application version id, scan type and
+	 * FoD scan date. If there is no such entry, or the scan file no longer exists,
+	 * this method returns null.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param scanType
+	 * @param fodScanDate
+	 * @return
+	 */
+	public Entry get(String sscApplicationVersionId, String scanType, Date fodScanDate) {
+		String key = getKey(sscApplicationVersionId, scanType, fodScanDate);
+		String value = entries.get(key);
+		if ( value!=null ) {
+			Entry entry = new Entry(key, Paths.get(StringUtils.substringAfter(value, "|")), StringUtils.substringBefore(value, "|"));
+			if ( Files.exists(entry.getScanFile()) ) {
+				return entry;
+			}
+			entries.remove(key);
+		}
+		return null;
+	}
+	
+	/**
+	 * Add a journal entry for the given SSC application version id, scan type and FoD
+	 * scan date, pointing to the given scan file and hash.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param scanType
+	 * @param fodScanDate
+	 * @param scanFile
+	 * @param scanHash
+	 * @return
+	 */
+	public Entry put(String sscApplicationVersionId, String scanType, Date fodScanDate, Path scanFile, String scanHash) {
+		Entry entry = new Entry(getKey(sscApplicationVersionId, scanType, fodScanDate), scanFile.toAbsolutePath(), scanHash);
+		entries.put(entry.getKey(), entry.getScanHash()+"|"+entry.getScanFile());
+		return entry;
+	}
+	
+	/**
+	 * Remove the given journal entry, for example after the scan has been 
+	 * successfully uploaded to SSC.
+	 * 
+	 * @param entry
+	 */
+	public void remove(Entry entry) {
+		entries.remove(entry.getKey());
+	}
+	
+	/**
+	 * Remove the given journal entry if its scan file matches the given scan file.
+	 * 
+	 * @param scanFile
+	 */
+	public void removeByScanFile(Path scanFile) {
+		String absolutePath = scanFile.toAbsolutePath().toString();
+		for ( Map.Entry<String, String> entry : entries.entrySet() ) {
+			if ( absolutePath.equals(StringUtils.substringAfter(entry.getValue(), "|")) ) {
+				entries.remove(entry.getKey());
+			}
+		}
+	}
+	
+	/**
+	 * Check whether the given scan file is referenced by any journal entry.
+	 * 
+	 * @param scanFile
+	 * @return
+	 */
+	public boolean containsScanFile(Path scanFile) {
+		String absolutePath = scanFile.toAbsolutePath().toString();
+		return entries.values().stream().anyMatch(value->absolutePath.equals(StringUtils.substringAfter(value, "|")));
+	}
+	
+	private static final String getKey(String sscApplicationVersionId, String scanType, Date fodScanDate) {
+		return String.format("%s:%s:%s", sscApplicationVersionId, scanType.toLowerCase(), fodScanDate.getTime());
+	}
+	
+	/**
+	 * Data class representing a single journal entry
+	 */
+	@Data
+	public static final class Entry {
+		private final String key;
+		private final Path scanFile;
+		private final String scanHash;
+	}
+}
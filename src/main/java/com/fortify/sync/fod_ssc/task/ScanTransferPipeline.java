@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig.ConfigPipeline;
+
+/**
+ * This class implements a two-stage pipeline for transferring scans from FoD to SSC.
+ * Scan transfers submitted through {@link #submit(IScanTransfer)} are downloaded by
+ * a configurable number of download workers. Downloaded scans are handed off to a
+ * configurable number of upload workers through a bounded queue; download workers 
+ * block if this queue is full, and {@link #submit(IScanTransfer)} blocks if all 
+ * download workers are busy. As such, a slow SSC upload no longer delays subsequent
+ * FoD downloads, while the number of downloaded scans awaiting upload is bounded.
+ * 
+ * Any errors during download or upload of an individual scan are logged, allowing
+ * other scans to be processed. {@link #close()} waits until all submitted scan
+ * transfers have been completed.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ScanTransferPipeline implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(ScanTransferPipeline.class);
+	private static final IScanTransfer END_OF_QUEUE = new IScanTransfer() {
+		public void download() {}
+		public void upload() {}
+	};
+	private final BlockingQueue<IScanTransfer> uploadQueue;
+	private final BoundedParallelProcessor<IScanTransfer> downloadProcessor;
+	private final ExecutorService uploadExecutor;
+	private final int uploadWorkers;
+	
+	/**
+	 * Create a new pipeline with the given name (used for thread names) and configuration,
+	 * and start the upload workers.
+	 *  
+	 * @param name
+	 * @param config
+	 */
+	public ScanTransferPipeline(String name, ConfigPipeline config) {
+		this.uploadWorkers = Math.max(1, config.getUploadWorkers());
+		this.uploadQueue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize()));
+		this.downloadProcessor = new BoundedParallelProcessor<>(name+"-download", config.getDownloadWorkers(), true, this::download);
+		this.uploadExecutor = Executors.newFixedThreadPool(uploadWorkers, new CustomizableThreadFactory(name+"-upload-"));
+		for ( int i = 0 ; i < uploadWorkers ; i++ ) {
+			uploadExecutor.execute(this::processUploadQueue);
+		}
+	}
+	
+	/**
+	 * Submit the given {@link IScanTransfer} to the download stage of this pipeline.
+	 * @param scanTransfer
+	 */
+	public void submit(IScanTransfer scanTransfer) {
+		downloadProcessor.accept(scanTransfer);
+	}
+	
+	/**
+	 * Download the given {@link IScanTransfer}, and hand it off to the upload stage.
+	 * @param scanTransfer
+	 */
+	private final void download(IScanTransfer scanTransfer) {
+		try {
+			scanTransfer.download();
+		} catch ( RuntimeException e ) {
+			LOG.error("Error downloading "+scanTransfer, e);
+			return;
+		}
+		try {
+			uploadQueue.put(scanTransfer);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting to upload "+scanTransfer, e);
+		}
+	}
+	
+	/**
+	 * Upload worker loop; this takes {@link IScanTransfer} instances from the upload queue
+	 * and uploads them, until the end-of-queue marker is encountered. Any {@link Throwable},
+	 * including {@link Error}s like {@link OutOfMemoryError}, thrown by an individual upload 
+	 * is logged rather than terminating the worker; every worker must remain alive to consume
+	 * its end-of-queue marker, as otherwise {@link #close()} would block forever.
+	 */
+	private final void processUploadQueue() {
+		try {
+			IScanTransfer scanTransfer;
+			while ( (scanTransfer = uploadQueue.take()) != END_OF_QUEUE ) {
+				try {
+					scanTransfer.upload();
+				} catch ( Throwable t ) {
+					LOG.error("Error uploading "+scanTransfer, t);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Wait for all downloads to complete, then signal the upload workers to stop once
+	 * the upload queue has been drained, and wait for all uploads to complete.
+	 */
+	@Override
+	public void close() {
+		downloadProcessor.close();
+		try {
+			for ( int i = 0 ; i < uploadWorkers ; i++ ) {
+				uploadQueue.put(END_OF_QUEUE);
+			}
+			uploadExecutor.shutdown();
+			while ( !uploadExecutor.awaitTermination(1, TimeUnit.MINUTES) ) {
+				LOG.debug("Waiting for scan uploads to complete");
+			}
+		} catch (InterruptedException e) {
+			uploadExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Interface representing a single scan transfer to be processed by {@link ScanTransferPipeline}.
+	 * Implementations should provide a meaningful {@link #toString()} implementation for logging
+	 * purposes.
+	 */
+	public static interface IScanTransfer {
+		/**
+		 * Download the scan from FoD
+		 */
+		public void download();
+		/**
+		 * Upload the previously downloaded scan to SSC, and update the sync status
+		 * on success
+		 */
+		public void upload();
+	}
+}
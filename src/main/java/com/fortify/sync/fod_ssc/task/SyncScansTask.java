@@ -26,14 +26,37 @@ package com.fortify.sync.fod_ssc.task;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
 import java.net.URLEncoder;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -51,12 +74,25 @@ import com.fortify.client.ssc.api.SSCApplicationVersionAttributeAPI;
 import com.fortify.client.ssc.api.SSCArtifactAPI;
 import com.fortify.client.ssc.api.SSCAttributeDefinitionAPI.SSCAttributeDefinitionHelper;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.sync.fod_ssc.cluster.ClusterMembership;
+import com.fortify.sync.fod_ssc.config.ExecutionConfig;
 import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig;
+import com.fortify.sync.fod_ssc.config.SyncScansTaskConfig.ConfigPipeline;
+import com.fortify.sync.fod_ssc.connection.EndpointConcurrencyLimiter;
+import com.fortify.sync.fod_ssc.connection.EndpointConcurrencyLimiter.Endpoint;
+import com.fortify.sync.fod_ssc.connection.fod.FoDRateLimitGovernor;
+import com.fortify.sync.fod_ssc.connection.fod.FoDRateLimitGovernor.Priority;
+import com.fortify.sync.fod_ssc.connection.fod.api.SyncFPRAPI;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.SyncConfigPredicate;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncArtifactAPI;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncConfig;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncData;
 import com.fortify.sync.fod_ssc.connection.ssc.api.SyncStatus;
+import com.fortify.sync.fod_ssc.metrics.SyncMetrics;
+import com.fortify.sync.fod_ssc.metrics.SyncMetrics.CountingInputStream;
+import com.fortify.sync.fod_ssc.state.SyncStateStore;
+import com.fortify.sync.fod_ssc.task.ScanTransferPipeline.IScanTransfer;
 import com.fortify.util.applier.ifblank.IfBlank;
 import com.fortify.util.rest.json.JSONMap;
 
@@ -77,15 +113,27 @@ import com.fortify.util.rest.json.JSONMap;
  *
  */
 @Component
-public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> implements IHasSyncableScanChecker {
+public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> implements IHasSyncableScanChecker, IFoDReleasesSyncer {
 	private static final String PFX_SCAN_FILE_NAME = "FoDScan-";
 	private static final Logger LOG = LoggerFactory.getLogger(SyncScansTask.class);
-	private static final SimpleDateFormat FMT_FOD_DATE = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+	/** FoD release fields holding the date of the latest scan for each scan type */
+	static final List<String> FOD_SCAN_DATE_FIELDS = Collections.unmodifiableList(Arrays.asList("staticScanDate", "dynamicScanDate", "mobileScanDate"));
+	private static final DateTimeFormatter FMT_FOD_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 	private static final FastDateFormat FMT_TIMESTAMP = FastDateFormat.getInstance("yyyyMMdd-HHmmss.SSS");
 	@Autowired private SyncScansTaskConfig config;
 	@Autowired private FoDAuthenticatingRestConnection fodConn;
 	@Autowired private SSCAuthenticatingRestConnection sscConn;
 	@Autowired private SSCAttributeDefinitionHelper attributeDefinitionHelper;
+	@Autowired private SyncStateStore syncStateStore;
+	@Autowired private ScanDownloadJournal scanDownloadJournal;
+	@Autowired private SyncMetrics syncMetrics;
+	@Autowired private FoDRateLimitGovernor fodRateLimitGovernor;
+	@Autowired private LinkedIdsIndex linkedIdsIndex;
+	@Autowired private ReleasePollingSchedule releasePollingSchedule;
+	@Autowired private ClusterMembership clusterMembership;
+	@Autowired private ExecutionConfig executionConfig;
+	@Autowired private EndpointConcurrencyLimiter endpointConcurrencyLimiter;
+	private final ReentrantLock syncLock = new ReentrantLock();
 
 	/**
 	 * Allow our superclass to access our configuration
@@ -104,24 +152,148 @@ public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> im
 
 	/**
 	 * This method is called by our superclass based on the configured schedule. Based on the functionality
-	 * provided by {@link SyncAPI}, this method will call the {@link #processSyncedApplicationVersion(SyncData)}
-	 * method for every SSC Application version for which sync is enabled. 
+	 * provided by {@link SyncAPI} and {@link SyncStateStore}, this method will first collect the 
+	 * {@link SyncData} for every SSC application version for which sync is enabled, and then defers 
+	 * the actual work to
+	 * {@link SyncedApplicationVersionsProcessor#processSyncedApplicationVersions()}.
 	 */
 	protected void runTask() {
+		syncLock.lock();
 		try {
-			sscConn.api(SyncAPI.class).processSyncData(attributeDefinitionHelper, this::processSyncedApplicationVersion, SyncConfigPredicate.IS_SYNC_ENABLED);
+			List<SyncData> syncDataList = getDueSyncDataList(getOwnedSyncDataList(syncStateStore.getSyncDataList(this::loadSyncDataListFromSSC)));
+			new SyncedApplicationVersionsProcessor(syncDataList).processSyncedApplicationVersions();
 		} finally {
-			deleteOldScans();
+			try {
+				deleteOldScans();
+			} finally {
+				syncLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * If multiple instances have been configured, return only the {@link SyncData} instances 
+	 * for the SSC application versions owned by the current instance, as determined by 
+	 * {@link ClusterMembership}. Otherwise, the given {@link SyncData} list is returned as-is.
+	 * 
+	 * @param syncDataList
+	 * @return
+	 */
+	private final List<SyncData> getOwnedSyncDataList(List<SyncData> syncDataList) {
+		if ( !clusterMembership.isClustered() ) {
+			return syncDataList;
+		}
+		List<SyncData> result = syncDataList.stream()
+				.filter(syncData->clusterMembership.isOwner(syncData.getSSCApplicationVersionId()))
+				.collect(Collectors.toList());
+		LOG.debug("Current instance owns {} of {} linked application versions", result.size(), syncDataList.size());
+		return result;
+	}
+	
+	/**
+	 * If adaptive polling is enabled, return only the {@link SyncData} instances for which
+	 * the linked FoD release is due to be checked according to our {@link ReleasePollingSchedule}.
+	 * Otherwise, the given {@link SyncData} list is returned as-is.
+	 * 
+	 * @param syncDataList
+	 * @return
+	 */
+	private final List<SyncData> getDueSyncDataList(List<SyncData> syncDataList) {
+		if ( !releasePollingSchedule.isEnabled() ) {
+			return syncDataList;
 		}
+		releasePollingSchedule.retainAll(syncDataList.stream()
+				.map(syncData->syncData.getSyncConfig().getFodReleaseId())
+				.collect(Collectors.toSet()));
+		List<SyncData> result = syncDataList.stream()
+				.filter(syncData->releasePollingSchedule.isDue(syncData.getSyncConfig().getFodReleaseId()))
+				.collect(Collectors.toList());
+		LOG.info("Checking {} of {} linked application versions based on adaptive polling schedule", result.size(), syncDataList.size());
+		return result;
 	}
 	
 	/**
-	 * Delete scan files older than the configured number of minutes.
+	 * Synchronize only the SSC application versions that are linked to any of the given FoD 
+	 * release id's. This is invoked by {@link ScanCompletedEventQueue} when FoD notifies us
+	 * about completed scans. The linked application versions are looked up as described in
+	 * {@link #getSyncDataList(Collection)}, avoiding a full load of all linked application
+	 * versions from SSC for every event. Targeted syncs and scheduled runs never execute
+	 * concurrently, to avoid the same scan being uploaded twice.
+	 * 
+	 * @param fodReleaseIds
+	 */
+	public final void syncFoDReleases(Collection<String> fodReleaseIds) {
+		syncLock.lock();
+		try {
+			List<SyncData> syncDataList = getOwnedSyncDataList(getSyncDataList(fodReleaseIds)).stream()
+					.filter(syncData->fodReleaseIds.contains(syncData.getSyncConfig().getFodReleaseId()))
+					.collect(Collectors.toList());
+			if ( syncDataList.isEmpty() ) {
+				LOG.info("No SSC application versions linked to FoD release id's {}", fodReleaseIds);
+			} else {
+				new SyncedApplicationVersionsProcessor(syncDataList).processSyncedApplicationVersions();
+			}
+		} finally {
+			syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * Get the {@link SyncData} for the SSC application versions linked to the given FoD
+	 * release id's. If {@link SyncStateStore} is enabled, the {@link SyncData} is taken
+	 * from the full list provided by the store. Otherwise, the linked application version 
+	 * id's are looked up in our {@link LinkedIdsIndex}, which is kept up to date by every 
+	 * full load from SSC and by {@link LinkReleasesTask}, and only these application versions 
+	 * are loaded from SSC. Application versions linked directly on SSC since the index was 
+	 * last rebuilt are picked up by the next scheduled run. Note that the returned list may 
+	 * include application versions that are no longer linked to any of the given FoD release
+	 * id's, so callers need to filter the returned list.
+	 * 
+	 * @param fodReleaseIds
+	 * @return
+	 */
+	private final List<SyncData> getSyncDataList(Collection<String> fodReleaseIds) {
+		if ( syncStateStore.isEnabled() ) {
+			return syncStateStore.getSyncDataList(this::loadSyncDataListFromSSC);
+		}
+		Set<String> sscApplicationVersionIds = linkedIdsIndex.getLinkedSSCApplicationVersionIds(fodReleaseIds).stream()
+				.filter(clusterMembership::isOwner)
+				.collect(Collectors.toSet());
+		List<SyncData> syncDataList = new ArrayList<>();
+		if ( !sscApplicationVersionIds.isEmpty() ) {
+			sscConn.api(SyncAPI.class).processSyncData(attributeDefinitionHelper, syncDataList::add, SyncConfigPredicate.IS_SYNC_ENABLED, sscApplicationVersionIds);
+		}
+		return syncDataList;
+	}
+	
+	/**
+	 * Load the {@link SyncData} for all SSC application versions for which sync is enabled.
+	 * This is invoked by {@link SyncStateStore#getSyncDataList(java.util.function.Supplier)}
+	 * if the store is disabled or needs to be refreshed. As this loads all linked application
+	 * versions, the loaded data is also used to refresh our {@link LinkedIdsIndex}.
+	 * 
+	 * @return
+	 */
+	private final List<SyncData> loadSyncDataListFromSSC() {
+		return linkedIdsIndex.reload(()->{
+			List<SyncData> syncDataList = new ArrayList<>();
+			sscConn.api(SyncAPI.class).processSyncData(attributeDefinitionHelper, syncDataList::add, SyncConfigPredicate.IS_SYNC_ENABLED);
+			return syncDataList;
+		});
+	}
+	
+	/**
+	 * Delete scan files older than the configured number of minutes. Scan files that
+	 * are still referenced by the {@link ScanDownloadJournal} because their upload 
+	 * failed are retained for the configured (longer) number of minutes, allowing 
+	 * them to be reused by subsequent runs.
 	 */
 	private final void deleteOldScans() {
 		String[] filesToDelete = new File(config.getScansTempDir()).list(scansToBeDeletedFilter);
 		for ( String fileToDelete : filesToDelete ) {
-			new File(config.getScansTempDir(), fileToDelete).delete();
+			File file = new File(config.getScansTempDir(), fileToDelete);
+			scanDownloadJournal.removeByScanFile(file.toPath());
+			file.delete();
 		}
 	}
 	
@@ -131,94 +303,283 @@ public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> im
 	private final FilenameFilter scansToBeDeletedFilter = new FilenameFilter() {
 		@Override
 		public boolean accept(File dir, String name) {
-			return name.startsWith(PFX_SCAN_FILE_NAME) &&
-					new File(dir, name).lastModified() < System.currentTimeMillis() - config.getDeleteScansOlderThanMinutes()*1000*60;
+			if ( !name.startsWith(PFX_SCAN_FILE_NAME) ) { return false; }
+			File file = new File(dir, name);
+			long retainMinutes = scanDownloadJournal.containsScanFile(file.toPath())
+					? Math.max(config.getDeleteScansOlderThanMinutes(), config.getRetainFailedUploadScansMinutes())
+					: config.getDeleteScansOlderThanMinutes();
+			return file.lastModified() < System.currentTimeMillis() - retainMinutes*1000*60;
 		}
 	};
-
+	
 	/**
-	 * Invoke the {@link #processSyncedApplicationVersion(SyncConfig, SyncStatus)} method with
-	 * the appropriate {@link SyncConfig} and {@link SyncStatus}, retrieved from the given 
-	 * {@link SyncData}.
+	 * This inner class processes a list of {@link SyncData} instances representing linked 
+	 * SSC application versions. The corresponding FoD releases are loaded in bulk when
+	 * this class is instantiated; {@link #processSyncedApplicationVersions()} then compares
+	 * FoD scan dates with the current sync status for each application version, and 
+	 * synchronizes any new scans. Depending on configuration, application versions are 
+	 * processed either sequentially or in parallel by a {@link BoundedParallelProcessor}, 
+	 * and scans are transferred either directly or through a {@link ScanTransferPipeline}.
 	 * 
-	 * @param syncData
+	 * @author Ruud Senden
+	 *
 	 */
-	private final void processSyncedApplicationVersion(SyncData syncData) {
-		String sscApplicationVersionId = syncData.getSSCApplicationVersionId();
-		SyncConfig syncConfig = syncData.getSyncConfig();
-		SyncStatus syncStatus = syncData.getSyncStatus().newIfDifferentFoDReleaseId(syncConfig.getFodReleaseId());
-		processSyncedApplicationVersion(sscApplicationVersionId, syncConfig, syncStatus);
+	private final class SyncedApplicationVersionsProcessor {
+		private final List<SyncData> syncDataList;
+		private final Map<String, JSONMap> fodReleasesById;
+		private final Set<String> failedFoDReleaseIds = ConcurrentHashMap.newKeySet();
+		private ScanTransferPipeline pipeline;
+		
+		/**
+		 * Constructor to initialize our {@link SyncData} list, and load the 
+		 * corresponding FoD releases using {@link #getFoDReleasesById(Collection)}.
+		 * 
+		 * @param syncDataList
+		 */
+		public SyncedApplicationVersionsProcessor(List<SyncData> syncDataList) {
+			this.syncDataList = syncDataList;
+			this.fodReleasesById = getFoDReleasesById(getFoDReleaseIdsToBeSynced(syncDataList));
+		}
+		
+		/**
+		 * Get the distinct FoD release id's for all given {@link SyncData} instances 
+		 * that have any scan types to be synchronized.
+		 * 
+		 * @param syncDataList
+		 * @return
+		 */
+		private final Set<String> getFoDReleaseIdsToBeSynced(List<SyncData> syncDataList) {
+			return syncDataList.stream()
+					.map(SyncData::getSyncConfig)
+					.filter(SyncConfig::isSyncEnabled)
+					.map(SyncConfig::getFodReleaseId)
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+		}
+		
+		/**
+		 * Invoke the {@link #processSyncedApplicationVersion(SyncData)} method for every
+		 * {@link SyncData} instance. If pipelining is enabled, this method only returns 
+		 * after all pipelined scan transfers have been completed. If adaptive polling is
+		 * enabled, the {@link ReleasePollingSchedule} is then updated for all FoD releases
+		 * that were processed without errors; releases with any failed scan transfer or
+		 * status update remain due, and will be checked again on the next run.
+		 */
+		public final void processSyncedApplicationVersions() {
+			ConfigPipeline pipelineConfig = config.getPipeline();
+			try ( ScanTransferPipeline pipeline = pipelineConfig.isEnabled() ? new ScanTransferPipeline("syncScans", pipelineConfig) : null;
+				  BoundedParallelProcessor<SyncData> processor = new BoundedParallelProcessor<>("syncScans", config.getMaxConcurrentVersions(), config.getMaxConcurrentVersions() > 1, executionConfig.isVirtualThreads(), this::processSyncedApplicationVersion) ) {
+				this.pipeline = pipeline;
+				syncDataList.forEach(processor);
+			}
+			if ( releasePollingSchedule.isEnabled() && !Thread.currentThread().isInterrupted() ) {
+				fodReleasesById.forEach((fodReleaseId, fodRelease)->{
+					if ( !failedFoDReleaseIds.contains(fodReleaseId) ) {
+						releasePollingSchedule.update(fodRelease);
+					}
+				});
+			}
+		}
+	
+		/**
+		 * Invoke the {@link #processSyncedApplicationVersion(SyncConfig, SyncStatus)} method with
+		 * the appropriate {@link SyncConfig} and {@link SyncStatus}, retrieved from the given 
+		 * {@link SyncData}. Any errors are logged, allowing other application versions to be
+		 * processed.
+		 * 
+		 * @param syncData
+		 */
+		private final void processSyncedApplicationVersion(SyncData syncData) {
+			String sscApplicationVersionId = syncData.getSSCApplicationVersionId();
+			syncMetrics.incrementVersionsScanned(getTaskName());
+			SyncConfig syncConfig = syncData.getSyncConfig();
+			try {
+				SyncStatus syncStatus = syncData.getSyncStatus().newIfDifferentFoDReleaseId(syncConfig.getFodReleaseId());
+				processSyncedApplicationVersion(sscApplicationVersionId, syncConfig, syncStatus);
+			} catch (RuntimeException e) {
+				failedFoDReleaseIds.add(syncConfig.getFodReleaseId());
+				LOG.error("Error processing application version id "+sscApplicationVersionId, e);
+			}
+		}
+	
+		/**
+		 * If there are any scan types to be synchronized according to the given {@link SyncConfig}, 
+		 * this method will look up the FoD release to be synchronized, and then call the 
+		 * {@link #syncScanTypeIfNecessary(String, JSONMap, SyncStatus, String)} for each scan type.
+		 * 
+		 * @param syncConfig
+		 * @param syncStatus
+		 */
+		private final void processSyncedApplicationVersion(String sscApplicationVersionId, SyncConfig syncConfig, SyncStatus syncStatus) {
+			String[] scanTypes = syncConfig.getIncludedScanTypes();
+			if ( scanTypes!=null && scanTypes.length > 0 ) {
+				String fodReleaseId = syncConfig.getFodReleaseId();
+				JSONMap fodRelease = fodReleasesById.get(fodReleaseId);
+				if ( fodRelease==null ) {
+					LOG.warn("FoD release id {} does not exist; skipping sync for application version id {}", fodReleaseId, sscApplicationVersionId);
+				} else {
+					processSyncedApplicationVersion(sscApplicationVersionId, syncStatus, scanTypes, fodRelease);
+				}
+			}
+			updateApplicationVersion(sscApplicationVersionId, syncStatus);
+		}
+	
+		private void processSyncedApplicationVersion(String sscApplicationVersionId, SyncStatus syncStatus, String[] scanTypes, JSONMap fodRelease) {
+			for ( String scanType : scanTypes ) {
+				try {
+					syncScanTypeIfNecessary(sscApplicationVersionId, fodRelease, syncStatus, scanType);
+				} catch (RuntimeException e) {
+					// We catch the exception here in order to allow other scan types to be processed,
+					// and scan status to be updated for successfully processed scan types.
+					failedFoDReleaseIds.add(fodRelease.get("releaseId", String.class));
+					syncMetrics.incrementScanFailures(getTaskName(), scanType);
+					LOG.error("Error processing scan type "+scanType,e);
+				} 
+			}
+		}
+	
+		/**
+		 * Compare the current FoD scan date for the given scan type with the current sync status. If
+		 * the given scan type was not uploaded to SSC before, or current FoD scan date is after the
+		 * scan date of the previously uploaded scan, the {@link #syncScanType(String, JSONMap, String, Date, String)}
+		 * method will be called to download latest scan results from FoD and upload to SSC, and the
+		 * current sync status will be updated with the current FoD scan date and scan hash. If pipelining is enabled,
+		 * the scan transfer is submitted to our {@link ScanTransferPipeline} instead, which will
+		 * update the sync status once the scan has been successfully uploaded.
+		 *  
+		 * @param sscApplicationVersionId
+		 * @param fodRelease
+		 * @param syncStatus
+		 * @param scanType
+		 */
+		private final void syncScanTypeIfNecessary(String sscApplicationVersionId, JSONMap fodRelease, SyncStatus syncStatus, String scanType) {
+			Date fodScanDate = getFoDScanDate(fodRelease, scanType);
+			Date oldScanDate;
+			String oldScanHash;
+			synchronized (syncStatus) {
+				oldScanDate = syncStatus.getScanDate(scanType);
+				oldScanHash = syncStatus.getScanHash(scanType);
+			}
+			LOG.debug("[{} - {}] Scan type {}: current scan date {}, previous scan date {}", fodRelease.get("applicationName", String.class), fodRelease.get("releaseName", String.class), scanType, fodScanDate, oldScanDate);
+			if ( isSyncableScanDate(fodScanDate) && (oldScanDate==null || fodScanDate.after(oldScanDate)) ) {
+				if ( pipeline!=null ) {
+					pipeline.submit(new PipelinedScanTransfer(sscApplicationVersionId, fodRelease, syncStatus, scanType, fodScanDate, oldScanHash, failedFoDReleaseIds));
+				} else {
+					String scanHash = syncScanType(sscApplicationVersionId, fodRelease, scanType, fodScanDate, oldScanHash);
+					synchronized (syncStatus) {
+						syncStatus.setScanDate(scanType, fodScanDate);
+						syncStatus.setScanHash(scanType, scanHash);
+					}
+				}
+			}
+		}
 	}
-
+	
 	/**
-	 * If there are any scan types to be synchronized according to the given {@link SyncConfig}, 
-	 * this method will retrieve the FoD release to be synchronized, and then call the 
-	 * {@link #syncScanTypeIfNecessary(String, JSONMap, SyncStatus, String)} for each scan
-	 * type.
+	 * {@link IScanTransfer} implementation for transferring a single scan through a
+	 * {@link ScanTransferPipeline}. The scan is downloaded to a temporary file by
+	 * {@link #download()}, and uploaded from this temporary file by {@link #upload()}.
+	 * If the downloaded scan is identical to the previously synced scan, the upload is 
+	 * skipped. Only after a successful or skipped upload, the sync status is updated 
+	 * with the FoD scan date and scan hash, and stored on SSC.
 	 * 
-	 * @param syncConfig
-	 * @param syncStatus
+	 * @author Ruud Senden
+	 *
 	 */
-	private final void processSyncedApplicationVersion(String sscApplicationVersionId, SyncConfig syncConfig, SyncStatus syncStatus) {
-		String[] scanTypes = syncConfig.getIncludedScanTypes();
-		if ( scanTypes!=null && scanTypes.length > 0 ) {
-			String fodReleaseId = syncConfig.getFodReleaseId();
-			JSONMap fodRelease = getFodRelease(fodReleaseId);
-			if ( fodRelease==null ) {
-				LOG.warn("FoD release id {} does not exist; skipping sync for application version id {}", fodReleaseId, sscApplicationVersionId);
-			} else {
-				processSyncedApplicationVersion(sscApplicationVersionId, syncStatus, scanTypes, fodRelease);
-			}
+	private final class PipelinedScanTransfer implements IScanTransfer {
+		private final String sscApplicationVersionId;
+		private final JSONMap fodRelease;
+		private final SyncStatus syncStatus;
+		private final String scanType;
+		private final Date fodScanDate;
+		private final String oldScanHash;
+		private final Set<String> failedFoDReleaseIds;
+		private ScanDownloadJournal.Entry downloadedScan;
+		
+		public PipelinedScanTransfer(String sscApplicationVersionId, JSONMap fodRelease, SyncStatus syncStatus, String scanType, Date fodScanDate, String oldScanHash, Set<String> failedFoDReleaseIds) {
+			this.sscApplicationVersionId = sscApplicationVersionId;
+			this.fodRelease = fodRelease;
+			this.syncStatus = syncStatus;
+			this.scanType = scanType;
+			this.fodScanDate = fodScanDate;
+			this.oldScanHash = oldScanHash;
+			this.failedFoDReleaseIds = failedFoDReleaseIds;
 		}
-		updateApplicationVersion(sscApplicationVersionId, syncStatus);
-	}
-	
-	private final void updateApplicationVersion(String sscApplicationVersionId, SyncStatus syncStatus) {
-		if ( syncStatus.isModified() ) {
-			LOG.debug("Updating sync status for application version id {}", sscApplicationVersionId);
-			MultiValueMap<String, Object> attributes = syncStatus.asAttributesMap();
-			sscConn.api(SSCApplicationVersionAttributeAPI.class).updateApplicationVersionAttributes(sscApplicationVersionId)
-				.withAttributeDefinitionHelper(attributeDefinitionHelper)
-				.byNameOrId(attributes)
-				.execute();
+
+		@Override
+		public void download() {
+			try {
+				downloadedScan = getOrDownloadScanType(sscApplicationVersionId, fodRelease, scanType, fodScanDate);
+			} catch (RuntimeException e) {
+				failedFoDReleaseIds.add(fodRelease.get("releaseId", String.class));
+				syncMetrics.incrementScanFailures(getTaskName(), scanType);
+				throw e;
+			}
 		}
-	}
 
-	private void processSyncedApplicationVersion(String sscApplicationVersionId, SyncStatus syncStatus, String[] scanTypes, JSONMap fodRelease) {
-		for ( String scanType : scanTypes ) {
+		@Override
+		public void upload() {
 			try {
-				syncScanTypeIfNecessary(sscApplicationVersionId, fodRelease, syncStatus, scanType);
+				uploadScanTypeIfNecessary(sscApplicationVersionId, scanType, downloadedScan, oldScanHash);
+				synchronized (syncStatus) {
+					syncStatus.setScanDate(scanType, fodScanDate);
+					syncStatus.setScanHash(scanType, downloadedScan.getScanHash());
+				}
+				updateApplicationVersion(sscApplicationVersionId, syncStatus);
 			} catch (RuntimeException e) {
-				// We catch the exception here in order to allow other scan types to be processed,
-				// and scan status to be updated for successfully processed scan types.
-				LOG.error("Error processing scan type "+scanType,e);
-			} 
+				failedFoDReleaseIds.add(fodRelease.get("releaseId", String.class));
+				syncMetrics.incrementScanFailures(getTaskName(), scanType);
+				throw e;
+			}
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s scan transfer from FoD release id %s to SSC application version id %s", 
+					scanType, fodRelease.get("releaseId",String.class), sscApplicationVersionId);
 		}
 	}
-
+	
 	/**
-	 * Compare the current FoD scan date for the given scan type with the current sync status. If
-	 * the given scan type was not uploaded to SSC before, or current FoD scan date is after the
-	 * scan date of the previously uploaded scan, the {@link #syncScanType(String, JSONMap, String)}
-	 * method will be called to download latest scan results from FoD and upload to SSC, and the
-	 * current sync status will be updated with the current FoD scan date. 
-	 *  
+	 * Store the given {@link SyncStatus} on SSC if it has been modified since it was loaded
+	 * or last stored. A snapshot of the sync status is taken while holding the {@link SyncStatus}
+	 * monitor, but the SSC request is sent while holding only the {@link SyncStatus#getUpdateLock()}. 
+	 * This way, other workers can continue to read and update the sync status while the request
+	 * is in progress, whereas updates for the same application version are still sent in order.
+	 * If the SSC request fails, the sync status is marked as modified again.
+	 * 
 	 * @param sscApplicationVersionId
-	 * @param fodRelease
 	 * @param syncStatus
-	 * @param scanType
 	 */
-	private final void syncScanTypeIfNecessary(String sscApplicationVersionId, JSONMap fodRelease, SyncStatus syncStatus, String scanType) {
-		Date fodScanDate = getFoDScanDate(fodRelease, scanType);
-		Date oldScanDate = syncStatus.getScanDate(scanType);
-		LOG.debug("[{} - {}] Scan type {}: current scan date {}, previous scan date {}", fodRelease.get("applicationName", String.class), fodRelease.get("releaseName", String.class), scanType, fodScanDate, oldScanDate);
-		if ( isSyncableScanDate(fodScanDate) && (oldScanDate==null || fodScanDate.after(oldScanDate)) ) {
-			syncScanType(sscApplicationVersionId, fodRelease, scanType);
-			syncStatus.setScanDate(scanType, fodScanDate);
+	private final void updateApplicationVersion(String sscApplicationVersionId, SyncStatus syncStatus) {
+		ReentrantLock updateLock = syncStatus.getUpdateLock();
+		updateLock.lock();
+		try {
+			String syncStatusString;
+			synchronized (syncStatus) {
+				if ( !syncStatus.isModified() ) { return; }
+				syncStatusString = syncStatus.asSyncStatusString();
+				syncStatus.setModified(false);
+			}
+			LOG.debug("Updating sync status for application version id {}", sscApplicationVersionId);
+			MultiValueMap<String, Object> attributes = SyncStatus.asAttributesMap(syncStatusString);
+			try {
+				endpointConcurrencyLimiter.run(Endpoint.SSC, ()->syncMetrics.recordStatusUpdate(getTaskName(), ()->
+					sscConn.api(SSCApplicationVersionAttributeAPI.class).updateApplicationVersionAttributes(sscApplicationVersionId)
+						.withAttributeDefinitionHelper(attributeDefinitionHelper)
+						.byNameOrId(attributes)
+						.execute()));
+			} catch (RuntimeException e) {
+				synchronized (syncStatus) {
+					syncStatus.setModified(true);
+				}
+				throw e;
+			}
+			syncStateStore.putSyncStatus(sscApplicationVersionId, syncStatusString);
+		} finally {
+			updateLock.unlock();
 		}
 	}
 	
-	
 	/* (non-Javadoc)
 	 * @see com.fortify.sync.fod_ssc.task.IHasSyncableScan#hasSyncableScan(com.fortify.util.rest.json.JSONMap, java.lang.String)
 	 */
@@ -248,15 +609,204 @@ public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> im
 	 * @param sscApplicationVersionId
 	 * @param fodRelease
 	 * @param scanType
+	 * @param fodScanDate
+	 * @param oldScanHash SHA-256 hash of the previously synced scan, or null if not available
+	 * @return SHA-256 hash of the synced scan
 	 */
-	private final void syncScanType(String sscApplicationVersionId, JSONMap fodRelease, String scanType) {
+	private final String syncScanType(String sscApplicationVersionId, JSONMap fodRelease, String scanType, Date fodScanDate, String oldScanHash) {
+		if ( config.isStreamScans() ) {
+			return streamScanType(sscApplicationVersionId, fodRelease, scanType);
+		} else {
+			return transferScanTypeUsingTempFile(sscApplicationVersionId, fodRelease, scanType, fodScanDate, oldScanHash);
+		}
+	}
+	
+	/**
+	 * Download the given scan type from the given FoD release to a temporary file, 
+	 * and then upload this temporary file to the given SSC application version. The
+	 * upload is skipped if the downloaded scan is identical to the previously synced
+	 * scan.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param fodRelease
+	 * @param scanType
+	 * @param fodScanDate
+	 * @param oldScanHash SHA-256 hash of the previously synced scan, or null if not available
+	 * @return SHA-256 hash of the downloaded scan
+	 */
+	private final String transferScanTypeUsingTempFile(String sscApplicationVersionId, JSONMap fodRelease, String scanType, Date fodScanDate, String oldScanHash) {
+		ScanDownloadJournal.Entry downloadedScan = getOrDownloadScanType(sscApplicationVersionId, fodRelease, scanType, fodScanDate);
+		uploadScanTypeIfNecessary(sscApplicationVersionId, scanType, downloadedScan, oldScanHash);
+		return downloadedScan.getScanHash();
+	}
+	
+	/**
+	 * If the {@link ScanDownloadJournal} contains a previously downloaded scan file for the
+	 * given application version id, scan type and FoD scan date, and the SHA-256 hash of this
+	 * file matches the journaled hash, this previously downloaded scan file is reused. Otherwise,
+	 * the given scan type is downloaded from the given FoD release to a new temporary file, and
+	 * this file is added to the {@link ScanDownloadJournal}.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param fodRelease
+	 * @param scanType
+	 * @param fodScanDate
+	 * @return {@link ScanDownloadJournal.Entry} describing the downloaded scan file
+	 */
+	private final ScanDownloadJournal.Entry getOrDownloadScanType(String sscApplicationVersionId, JSONMap fodRelease, String scanType, Date fodScanDate) {
+		ScanDownloadJournal.Entry previousDownload = scanDownloadJournal.get(sscApplicationVersionId, scanType, fodScanDate);
+		if ( previousDownload!=null && previousDownload.getScanHash().equals(getSHA256(previousDownload.getScanFile())) ) {
+			LOG.info("Reusing previously downloaded {} scan {} for SSC application version id {}", scanType, previousDownload.getScanFile(), sscApplicationVersionId);
+			return previousDownload;
+		}
 		Path scanFile = Paths.get(config.getScansTempDir(), getScanTempFileName(fodRelease, scanType));
-		// TODO Pipe FPR input stream from FoD directly to SSC, instead of using temp file
+		String scanHash = downloadScanType(fodRelease, scanType, scanFile);
+		return scanDownloadJournal.put(sscApplicationVersionId, scanType, fodScanDate, scanFile, scanHash);
+	}
+	
+	/**
+	 * Upload the given downloaded scan to the given SSC application version, unless it is 
+	 * identical to the previously synced scan. On success, the downloaded scan is removed 
+	 * from the {@link ScanDownloadJournal}. 
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param scanType
+	 * @param downloadedScan
+	 * @param oldScanHash
+	 */
+	private final void uploadScanTypeIfNecessary(String sscApplicationVersionId, String scanType, ScanDownloadJournal.Entry downloadedScan, String oldScanHash) {
+		if ( isIdenticalScan(downloadedScan.getScanHash(), oldScanHash) ) {
+			logSkippingIdenticalScan(sscApplicationVersionId, scanType);
+		} else {
+			uploadScanType(sscApplicationVersionId, scanType, downloadedScan.getScanFile());
+		}
+		scanDownloadJournal.remove(downloadedScan);
+	}
+	
+	/**
+	 * Check whether the given scan hash is equal to the hash of the previously synced scan,
+	 * and skipping identical scans has been enabled.
+	 * 
+	 * @param scanHash
+	 * @param oldScanHash
+	 * @return
+	 */
+	private final boolean isIdenticalScan(String scanHash, String oldScanHash) {
+		return config.isSkipIdenticalScans() && oldScanHash!=null && oldScanHash.equals(scanHash);
+	}
+	
+	private final void logSkippingIdenticalScan(String sscApplicationVersionId, String scanType) {
+		LOG.info("Not uploading {} scan to SSC application version id {}, as it is identical to the previously synced scan", scanType, sscApplicationVersionId);
+	}
+	
+	/**
+	 * Download the given scan type from the given FoD release to the given file. The 
+	 * SHA-256 hash is calculated while the FPR response body is being written to disk,
+	 * to avoid having to re-read the downloaded file.
+	 * 
+	 * @param fodRelease
+	 * @param scanType
+	 * @param scanFile
+	 * @return Hex-encoded SHA-256 hash of the downloaded scan file
+	 */
+	private final String downloadScanType(JSONMap fodRelease, String scanType, Path scanFile) {
 		String fodReleaseId = fodRelease.get("releaseId",String.class);
 		LOG.info("Downloading {} scan from FoD release id {}", scanType, fodReleaseId);
-		fodConn.api(FoDReleaseAPI.class).saveFPR(fodReleaseId, scanType, scanFile);
+		fodRateLimitGovernor.acquire(Priority.HIGH);
+		MessageDigest digest = getSHA256MessageDigest();
+		endpointConcurrencyLimiter.run(Endpoint.FOD, ()->syncMetrics.recordFPRDownload(getTaskName(), scanType, ()->
+			fodConn.api(SyncFPRAPI.class).processFPR(fodReleaseId, scanType, fprInputStream->save(new DigestInputStream(fprInputStream, digest), scanFile))));
+		syncMetrics.recordFPRDownloadBytes(getTaskName(), scanType, scanFile.toFile().length());
+		return toHex(digest.digest());
+	}
+	
+	/**
+	 * Write the given {@link InputStream} to the given file, replacing any existing file.
+	 * 
+	 * @param inputStream
+	 * @param file
+	 * @return The given file
+	 */
+	private static final Path save(InputStream inputStream, Path file) {
+		try {
+			Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+			return file;
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing scan file "+file, e);
+		}
+	}
+	
+	/**
+	 * Upload the given scan file to the given SSC application version.
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param scanType
+	 * @param scanFile
+	 */
+	private final void uploadScanType(String sscApplicationVersionId, String scanType, Path scanFile) {
 		LOG.info("Uploading {} scan to SSC application version id {}", scanType, sscApplicationVersionId);
-		sscConn.api(SSCArtifactAPI.class).uploadArtifact(sscApplicationVersionId, scanFile.toFile());
+		endpointConcurrencyLimiter.run(Endpoint.SSC, ()->syncMetrics.recordArtifactUpload(getTaskName(), scanType, ()->
+			sscConn.api(SSCArtifactAPI.class).uploadArtifact(sscApplicationVersionId, scanFile.toFile())));
+		syncMetrics.recordArtifactUploadBytes(getTaskName(), scanType, scanFile.toFile().length());
+	}
+	
+	/**
+	 * Pipe the FPR response body for the given scan type from the given FoD release
+	 * directly into the upload request for the given SSC application version, without
+	 * storing the FPR file on disk. As download and upload happen concurrently, only
+	 * the upload duration is recorded; the number of bytes streamed is recorded as 
+	 * both download and upload size. 
+	 * 
+	 * @param sscApplicationVersionId
+	 * @param fodRelease
+	 * @param scanType
+	 */
+	private final String streamScanType(String sscApplicationVersionId, JSONMap fodRelease, String scanType) {
+		String fodReleaseId = fodRelease.get("releaseId",String.class);
+		String fileName = getScanTempFileName(fodRelease, scanType);
+		LOG.info("Streaming {} scan from FoD release id {} to SSC application version id {}", scanType, fodReleaseId, sscApplicationVersionId);
+		fodRateLimitGovernor.acquire(Priority.HIGH);
+		return endpointConcurrencyLimiter.call(Endpoint.FOD, ()->fodConn.api(SyncFPRAPI.class).processFPR(fodReleaseId, scanType, fprInputStream->{
+			MessageDigest digest = getSHA256MessageDigest();
+			CountingInputStream countingInputStream = new CountingInputStream(new DigestInputStream(fprInputStream, digest));
+			endpointConcurrencyLimiter.run(Endpoint.SSC, ()->syncMetrics.recordArtifactUpload(getTaskName(), scanType, ()->
+				sscConn.api(SyncArtifactAPI.class).uploadArtifact(sscApplicationVersionId, fileName, countingInputStream)));
+			syncMetrics.recordFPRDownloadBytes(getTaskName(), scanType, countingInputStream.getByteCount());
+			syncMetrics.recordArtifactUploadBytes(getTaskName(), scanType, countingInputStream.getByteCount());
+			return toHex(digest.digest());
+		}));
+	}
+	
+	/**
+	 * Calculate the SHA-256 hash for the given file.
+	 * 
+	 * @param file
+	 * @return Hex-encoded SHA-256 hash
+	 */
+	private static final String getSHA256(Path file) {
+		MessageDigest digest = getSHA256MessageDigest();
+		try ( InputStream is = Files.newInputStream(file) ) {
+			byte[] buffer = new byte[64*1024];
+			int read;
+			while ( (read = is.read(buffer)) != -1 ) {
+				digest.update(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error calculating hash for "+file, e);
+		}
+		return toHex(digest.digest());
+	}
+	
+	private static final MessageDigest getSHA256MessageDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 algorithm not available", e);
+		}
+	}
+	
+	private static final String toHex(byte[] bytes) {
+		return String.format("%064x", new BigInteger(1, bytes));
 	}
 
 	private String getScanTempFileName(JSONMap fodRelease, String scanType) {
@@ -273,17 +823,87 @@ public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> im
 	}
 
 	/**
-	 * Get the FoD release JSON object for the given FoD release id. The returned {@link JSONMap} will
-	 * contain the FoD release id, application name, release name, and static/dynamic/mobile scan dates.
-	 * @param fodReleaseId
+	 * Get the FoD release JSON objects for the given FoD release id's, indexed by FoD release id. 
+	 * Rather than querying each release individually, releases are queried in batches of the 
+	 * configured size, using an FoD filter like <code>releaseId:1|2|3</code>. The returned 
+	 * {@link JSONMap} instances will contain the FoD release id, application name, release name, 
+	 * and static/dynamic/mobile scan dates. Release id's that are not numeric, that do not exist 
+	 * on FoD, or that could not be loaded due to errors will not be present in the returned map.
+	 * 
+	 * @param fodReleaseIds
 	 * @return
 	 */
-	private final JSONMap getFodRelease(String fodReleaseId) {
-		return fodConn.api(FoDReleaseAPI.class)
+	private final Map<String, JSONMap> getFoDReleasesById(Collection<String> fodReleaseIds) {
+		Map<String, JSONMap> result = new HashMap<>();
+		List<String> batch = new ArrayList<>();
+		for ( String fodReleaseId : fodReleaseIds ) {
+			if ( StringUtils.isBlank(fodReleaseId) || !StringUtils.isNumeric(fodReleaseId) ) {
+				LOG.warn("Ignoring invalid FoD release id '{}'", fodReleaseId);
+				continue;
+			}
+			batch.add(fodReleaseId);
+			if ( batch.size() >= Math.max(1, config.getReleaseLookupBatchSize()) ) {
+				addFoDReleasesById(result, batch);
+				batch.clear();
+			}
+		}
+		if ( !batch.isEmpty() ) {
+			addFoDReleasesById(result, batch);
+		}
+		return result;
+	}
+	
+	/**
+	 * Query the FoD releases for the given batch of FoD release id's, and add them
+	 * to the given map. If the batch query fails, for example because the batch
+	 * contains an id that FoD rejects, the releases in this batch are queried 
+	 * individually, such that only the application versions linked to problematic 
+	 * releases are skipped. 
+	 * 
+	 * @param fodReleasesById
+	 * @param fodReleaseIdsBatch
+	 */
+	private final void addFoDReleasesById(Map<String, JSONMap> fodReleasesById, List<String> fodReleaseIdsBatch) {
+		try {
+			queryFoDReleasesById(fodReleasesById, fodReleaseIdsBatch);
+		} catch ( RuntimeException e ) {
+			if ( fodReleaseIdsBatch.size()==1 ) {
+				LOG.error("Error loading FoD release id "+fodReleaseIdsBatch.get(0), e);
+			} else {
+				LOG.warn("Error loading FoD releases "+fodReleaseIdsBatch+"; loading these releases individually", e);
+				for ( String fodReleaseId : fodReleaseIdsBatch ) {
+					addFoDReleasesById(fodReleasesById, Collections.singletonList(fodReleaseId));
+				}
+			}
+		}
+	}
+	
+	private final void queryFoDReleasesById(Map<String, JSONMap> fodReleasesById, List<String> fodReleaseIdsBatch) {
+		LOG.debug("Loading FoD releases {}", fodReleaseIdsBatch);
+		fodRateLimitGovernor.acquire(Priority.HIGH);
+		syncMetrics.recordFoDReleaseLookup(getTaskName(), ()->
+			fodConn.api(FoDReleaseAPI.class)
 				.queryReleases()
-				.releaseId(IfBlank.ERROR(), fodReleaseId)
+				.preProcessor(fodRateLimitGovernor.pageMeter(Priority.HIGH))
+				.paramFilterAnd(IfBlank.ERROR(), "releaseId", String.join("|", fodReleaseIdsBatch))
 				.paramFields(IfBlank.ERROR(), "releaseId", "applicationName", "releaseName", "staticScanDate", "dynamicScanDate", "mobileScanDate")
-				.build().getUnique();
+				.build().processAll(release->fodReleasesById.put(release.get("releaseId", String.class), release)));
+	}
+	
+	/**
+	 * Get the raw values of all {@link #FOD_SCAN_DATE_FIELDS} from the given release JSON object,
+	 * joined into a single string. This allows for easily detecting whether any scan date has
+	 * changed between two versions of the same release.
+	 * 
+	 * @param fodRelease
+	 * @return
+	 */
+	static final String getFoDScanDates(JSONMap fodRelease) {
+		StringBuilder sb = new StringBuilder();
+		for ( String field : FOD_SCAN_DATE_FIELDS ) {
+			sb.append(fodRelease.get(field, String.class)).append(';');
+		}
+		return sb.toString();
 	}
 	
 	/**
@@ -298,17 +918,19 @@ public class SyncScansTask extends AbstractScheduledTask<SyncScansTaskConfig> im
 	}
 	
 	/**
-	 * Parse an FoD scan date according to the format defined by {@value #FMT_FOD_DATE}
+	 * Parse an FoD scan date according to the format defined by {@link #FMT_FOD_DATE}.
+	 * Similar to {@link java.text.SimpleDateFormat#parse(String)}, any text following
+	 * the date and time, like fractional seconds or a time zone designator, is ignored.
+	 * This method is package-private to allow for testing and benchmarking.
 	 * @param dateString
 	 * @return
 	 */
-	private static final Date parseFoDDate(String dateString) {
+	static final Date parseFoDDate(String dateString) {
 		if ( dateString == null ) { return null; }
 		try {
-			synchronized (FMT_FOD_DATE) { // Avoid potential Format.parse()-related race conditions
-				return FMT_FOD_DATE.parse(StringUtils.substringBefore(dateString, "."));
-			}
-		} catch ( ParseException e ) {
+			LocalDateTime dateTime = LocalDateTime.from(FMT_FOD_DATE.parse(dateString, new ParsePosition(0)));
+			return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+		} catch ( DateTimeException e ) {
 			throw new RuntimeException("Error parsing scan date "+dateString+" returned by FoD", e);
 		}
 	}
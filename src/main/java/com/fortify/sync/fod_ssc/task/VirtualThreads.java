@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class provides access to virtual threads on Java 21 and up. As this application 
+ * is compiled for Java 8, the virtual thread API is accessed through reflection; 
+ * {@link #newThreadPerTaskExecutor(String)} returns null on Java versions that don't
+ * support virtual threads, allowing callers to fall back to platform threads.
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class VirtualThreads {
+	private static final Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+	private static final Method OF_VIRTUAL = getMethod(Thread.class, "ofVirtual");
+	private static final Method BUILDER_NAME = getMethod(getClass("java.lang.Thread$Builder"), "name", String.class, long.class);
+	private static final Method BUILDER_FACTORY = getMethod(getClass("java.lang.Thread$Builder"), "factory");
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR = getMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+	private static volatile boolean unsupportedWarningLogged = false;
+	
+	private VirtualThreads() {}
+	
+	/**
+	 * @return true if the current Java version supports virtual threads, false otherwise
+	 */
+	static final boolean isSupported() {
+		return OF_VIRTUAL!=null && BUILDER_NAME!=null && BUILDER_FACTORY!=null && NEW_THREAD_PER_TASK_EXECUTOR!=null;
+	}
+	
+	/**
+	 * Create an {@link ExecutorService} that starts a new virtual thread for every task,
+	 * with thread names starting with the given prefix. If virtual threads are not 
+	 * supported, a warning is logged (only once) and null is returned.
+	 * 
+	 * @param namePrefix
+	 * @return
+	 */
+	static final ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+		if ( !isSupported() ) {
+			if ( !unsupportedWarningLogged ) {
+				unsupportedWarningLogged = true;
+				LOG.warn("Virtual threads are not supported on Java {}; using platform threads instead", System.getProperty("java.version"));
+			}
+			return null;
+		}
+		try {
+			Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory)BUILDER_FACTORY.invoke(builder);
+			return (ExecutorService)NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		} catch ( ReflectiveOperationException e ) {
+			throw new IllegalStateException("Error creating virtual thread executor", e);
+		}
+	}
+	
+	private static final Class<?> getClass(String name) {
+		try {
+			return Class.forName(name);
+		} catch ( ClassNotFoundException e ) {
+			return null;
+		}
+	}
+	
+	private static final Method getMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+		try {
+			return clazz==null ? null : clazz.getMethod(name, parameterTypes);
+		} catch ( NoSuchMethodException e ) {
+			return null;
+		}
+	}
+}
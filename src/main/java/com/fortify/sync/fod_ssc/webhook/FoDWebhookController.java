@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.webhook;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fortify.sync.fod_ssc.config.FoDWebhookConfig;
+import com.fortify.sync.fod_ssc.task.ScanCompletedEventQueue;
+
+/**
+ * This {@link RestController} accepts FoD scan-completed webhook events on 
+ * <code>POST /webhooks/fod/scan-completed</code>, and enqueues the FoD release
+ * identified by the event payload for immediate synchronization through 
+ * {@link ScanCompletedEventQueue}. The payload must be a JSON object containing
+ * a <code>releaseId</code> property, and optionally a <code>scanId</code> property
+ * that is used to deduplicate repeated deliveries of the same event. Property 
+ * names are matched case-insensitively.
+ * 
+ * If a token has been configured, requests must provide the same token through
+ * the <code>token</code> request parameter.
+ * 
+ * This controller is only active if <code>sync.webhooks.fod.enabled</code> is set
+ * to true. As the embedded web server is disabled by default, this also requires
+ * <code>spring.main.web-application-type</code> to be set to <code>servlet</code>;
+ * application startup fails if the webhook is enabled without a web server. Note 
+ * that the SyncScans task schedule remains active as a safety net for any missed
+ * events.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@RestController
+@RequestMapping("/webhooks/fod")
+@ConditionalOnProperty(name="sync.webhooks.fod.enabled", havingValue="true")
+public class FoDWebhookController {
+	private static final Logger LOG = LoggerFactory.getLogger(FoDWebhookController.class);
+	@Autowired private FoDWebhookConfig config;
+	@Autowired private ScanCompletedEventQueue scanCompletedEventQueue;
+	@Autowired private ApplicationContext applicationContext;
+	
+	@PostConstruct
+	public void checkWebApplication() {
+		if ( !(applicationContext instanceof WebApplicationContext) ) {
+			throw new IllegalStateException("sync.webhooks.fod.enabled requires spring.main.web-application-type to be set to servlet");
+		}
+	}
+	
+	@PostMapping("/scan-completed")
+	public ResponseEntity<String> scanCompleted(@RequestParam(name="token", required=false) String token, @RequestBody Map<String, Object> payload) {
+		if ( StringUtils.isNotBlank(config.getToken()) && !isValidToken(token) ) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+		}
+		String releaseId = getPropertyIgnoreCase(payload, "releaseId");
+		if ( StringUtils.isBlank(releaseId) ) {
+			return ResponseEntity.badRequest().body("Missing releaseId");
+		}
+		String scanId = getPropertyIgnoreCase(payload, "scanId");
+		LOG.debug("Received FoD scan-completed event for release id {}, scan id {}", releaseId, scanId);
+		return scanCompletedEventQueue.enqueue(releaseId, scanId)
+				? ResponseEntity.status(HttpStatus.ACCEPTED).body("Queued")
+				: ResponseEntity.ok("Duplicate");
+	}
+
+	/**
+	 * Compare the given token with the configured token in constant time, to avoid
+	 * leaking information about the configured token through response timings.
+	 * @param token
+	 * @return
+	 */
+	private final boolean isValidToken(String token) {
+		return token!=null && MessageDigest.isEqual(
+				config.getToken().getBytes(StandardCharsets.UTF_8), 
+				token.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static final String getPropertyIgnoreCase(Map<String, Object> payload, String name) {
+		for ( Map.Entry<String, Object> entry : payload.entrySet() ) {
+			if ( name.equalsIgnoreCase(entry.getKey()) && entry.getValue()!=null ) {
+				return entry.getValue().toString();
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.connection.ssc.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.ApplicationVersionNameIndex;
+import com.fortify.util.rest.json.JSONMap;
+
+class ApplicationVersionNameIndexTest {
+	@Test
+	void getReturnsAddedApplicationVersion() {
+		ApplicationVersionNameIndex index = new ApplicationVersionNameIndex();
+		index.add("1", "MyApp", "1.0");
+		JSONMap applicationVersion = index.get("MyApp", "1.0");
+		assertEquals("1", applicationVersion.get("id", String.class));
+		assertEquals("1.0", applicationVersion.get("name", String.class));
+		assertEquals("MyApp", applicationVersion.getPath("project.name", String.class));
+		assertNull(index.get("MyApp", "2.0"));
+		assertNull(index.get("OtherApp", "1.0"));
+	}
+	
+	@Test
+	void getIgnoresCase() {
+		ApplicationVersionNameIndex index = new ApplicationVersionNameIndex();
+		index.add("1", "MyApp", "Release-A");
+		assertEquals("1", index.get("myapp", "RELEASE-a").get("id", String.class));
+	}
+	
+	@Test
+	void getIgnoresCaseIndependentOfDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		try {
+			Locale.setDefault(new Locale("tr"));
+			ApplicationVersionNameIndex index = new ApplicationVersionNameIndex();
+			index.add("1", "INTEGRATION", "TITLE");
+			assertEquals("1", index.get("integration", "title").get("id", String.class));
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+	
+	@Test
+	void namesContainingSeparatorsDoNotCollide() {
+		ApplicationVersionNameIndex index = new ApplicationVersionNameIndex();
+		index.add("1", "a:b", "c");
+		index.add("2", "a", "b:c");
+		assertEquals("1", index.get("a:b", "c").get("id", String.class));
+		assertEquals("2", index.get("a", "b:c").get("id", String.class));
+	}
+	
+	@Test
+	void acceptIndexesApplicationVersionJSON() {
+		ApplicationVersionNameIndex index = new ApplicationVersionNameIndex();
+		JSONMap project = new JSONMap();
+		project.put("name", "MyApp");
+		JSONMap applicationVersion = new JSONMap();
+		applicationVersion.put("id", "3");
+		applicationVersion.put("name", "1.0");
+		applicationVersion.put("project", project);
+		index.accept(applicationVersion);
+		assertEquals("3", index.get("MyApp", "1.0").get("id", String.class));
+	}
+}
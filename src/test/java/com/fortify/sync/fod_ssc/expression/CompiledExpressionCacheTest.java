@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.expression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.spring.expression.helper.DefaultExpressionHelper;
+
+/**
+ * Verify that {@link CompiledExpressionCache} evaluates every filter, attribute and
+ * description expression defined in the sample configuration files in the same way
+ * as the Fortify client API {@link DefaultExpressionHelper}. 
+ * 
+ * @author Ruud Senden
+ *
+ */
+class CompiledExpressionCacheTest {
+	private static final String ERROR = "<error>";
+	private final CompiledExpressionCache expressionCache = new CompiledExpressionCache();
+	
+	@Test
+	void predicateExpressionsMatchClientAPI() throws IOException {
+		Set<String> predicates = new LinkedHashSet<>();
+		Set<String> templates = new LinkedHashSet<>();
+		collectConfiguredExpressions(predicates, templates);
+		assertFalse(predicates.isEmpty());
+		for ( String predicate : predicates ) {
+			for ( JSONMap input : getInputs() ) {
+				assertEquals(
+					evaluate(()->Boolean.TRUE.equals(DefaultExpressionHelper.get().evaluateTemplateExpression(input, "${"+predicate+"}", Boolean.class))),
+					evaluate(()->expressionCache.evaluatePredicate(input, predicate)),
+					predicate+" on "+input);
+			}
+		}
+	}
+	
+	@Test
+	void templateExpressionsMatchClientAPI() throws IOException {
+		Set<String> predicates = new LinkedHashSet<>();
+		Set<String> templates = new LinkedHashSet<>();
+		collectConfiguredExpressions(predicates, templates);
+		assertFalse(templates.isEmpty());
+		for ( String template : templates ) {
+			for ( JSONMap input : getInputs() ) {
+				assertEquals(
+					evaluate(()->DefaultExpressionHelper.get().evaluateTemplateExpression(input, template, Object.class)),
+					evaluate(()->expressionCache.evaluateTemplateExpression(input, template, Object.class)),
+					template+" on "+input);
+			}
+		}
+	}
+	
+	private static final Object evaluate(Supplier<Object> supplier) {
+		try {
+			return supplier.get();
+		} catch ( RuntimeException e ) {
+			return ERROR;
+		}
+	}
+	
+	private static final List<JSONMap> getInputs() {
+		Map<String, Object> attributesMap = new HashMap<>();
+		attributesMap.put("SyncWithSSC", "True");
+		attributesMap.put("Project type", "Web");
+		JSONMap application = new JSONMap();
+		application.put("applicationId", "1");
+		application.put("applicationName", "WebGoat");
+		application.put("applicationDescription", "Application description");
+		application.put("attributesMap", attributesMap);
+		JSONMap release = new JSONMap();
+		release.put("releaseId", "2");
+		release.put("releaseName", "5.0");
+		release.put("releaseDescription", "Release description");
+		release.put("sdlcStatusType", "Production");
+		release.put("application", application);
+		JSONMap releaseWithoutApplication = new JSONMap();
+		releaseWithoutApplication.put("releaseName", "1.0");
+		return Arrays.asList(application, release, releaseWithoutApplication, new JSONMap());
+	}
+	
+	private static final void collectConfiguredExpressions(Set<String> predicates, Set<String> templates) throws IOException {
+		try ( DirectoryStream<Path> configFiles = Files.newDirectoryStream(Paths.get("config"), "*.yml") ) {
+			for ( Path configFile : configFiles ) {
+				try ( InputStream is = Files.newInputStream(configFile) ) {
+					for ( Object document : new Yaml().loadAll(is) ) {
+						collectExpressions(document, predicates, templates);
+					}
+				}
+			}
+		}
+	}
+	
+	private static final void collectExpressions(Object node, Set<String> predicates, Set<String> templates) {
+		if ( node instanceof Map ) {
+			for ( Map.Entry<?, ?> entry : ((Map<?, ?>)node).entrySet() ) {
+				String key = String.valueOf(entry.getKey());
+				if ( "filterExpressions".equals(key) ) {
+					predicates.addAll(getStrings(entry.getValue()));
+				} else if ( "attributeExpressions".equals(key) || key.endsWith("DescriptionExpression") ) {
+					templates.addAll(getStrings(entry.getValue()));
+				} else {
+					collectExpressions(entry.getValue(), predicates, templates);
+				}
+			}
+		} else if ( node instanceof Collection ) {
+			((Collection<?>)node).forEach(child->collectExpressions(child, predicates, templates));
+		}
+	}
+	
+	private static final List<String> getStrings(Object node) {
+		List<String> result = new ArrayList<>();
+		if ( node instanceof String ) {
+			result.add((String)node);
+		} else if ( node instanceof Map ) {
+			((Map<?, ?>)node).values().forEach(value->result.addAll(getStrings(value)));
+		} else if ( node instanceof Collection ) {
+			((Collection<?>)node).forEach(value->result.addAll(getStrings(value)));
+		}
+		return result;
+	}
+}
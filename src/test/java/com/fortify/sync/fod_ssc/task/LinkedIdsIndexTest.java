@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fortify.sync.fod_ssc.config.LinkReleasesTaskConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncAPI.LinkedVersionsAndReleasesIds;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncConfig;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncData;
+import com.fortify.sync.fod_ssc.connection.ssc.api.SyncStatus;
+
+class LinkedIdsIndexTest {
+	private LinkedIdsIndex index;
+	
+	@BeforeEach
+	void setUp() {
+		index = new LinkedIdsIndex();
+		ReflectionTestUtils.setField(index, "config", new LinkReleasesTaskConfig());
+	}
+	
+	@Test
+	void reloadReplacesIndexContents() {
+		index.reload(()->syncDataList("1", "10", "2", "20"));
+		index.reload(()->syncDataList("3", "30"));
+		assertLinks(index.get(), Arrays.asList("3"), Arrays.asList("30"));
+	}
+	
+	@Test
+	void reloadRetainsLinksAddedDuringReload() {
+		index.reload(()->syncDataList("1", "10"));
+		index.reload(()->{
+			// Simulate LinkReleasesTask linking a new application version while SyncScansTask 
+			// is paging through SSC application versions
+			index.addLink("2", "20");
+			return syncDataList("1", "10");
+		});
+		assertLinks(index.get(), Arrays.asList("1", "2"), Arrays.asList("10", "20"));
+	}
+	
+	@Test
+	void linksAddedAfterReloadAreNotRecordedForLaterReloads() {
+		index.reload(()->syncDataList("1", "10"));
+		index.addLink("2", "20");
+		index.reload(()->syncDataList("1", "10"));
+		assertLinks(index.get(), Arrays.asList("1"), Arrays.asList("10"));
+	}
+	
+	@Test
+	void failedReloadKeepsCurrentIndexContents() {
+		index.reload(()->syncDataList("1", "10"));
+		assertThrows(IllegalStateException.class, ()->index.reload(()->{ throw new IllegalStateException("SSC unavailable"); }));
+		index.addLink("2", "20");
+		assertLinks(index.get(), Arrays.asList("1", "2"), Arrays.asList("10", "20"));
+	}
+	
+	@Test
+	void getLinkedSSCApplicationVersionIdsByFoDReleaseIds() {
+		index.reload(()->{
+			index.addLink("4", "30");
+			return syncDataList("1", "10", "2", "20", "3", "30");
+		});
+		index.addLink("5", "10");
+		assertEquals(new HashSet<>(Arrays.asList("1", "3", "4", "5")), index.getLinkedSSCApplicationVersionIds(Arrays.asList("10", "30", "40")));
+	}
+	
+	private static final List<SyncData> syncDataList(String... sscApplicationVersionAndFoDReleaseIds) {
+		List<SyncData> result = new ArrayList<>();
+		for ( int i = 0 ; i < sscApplicationVersionAndFoDReleaseIds.length ; i+=2 ) {
+			SyncConfig syncConfig = new SyncConfig(sscApplicationVersionAndFoDReleaseIds[i+1], new String[] {"Static"});
+			result.add(new SyncData(sscApplicationVersionAndFoDReleaseIds[i], syncConfig, new SyncStatus()));
+		}
+		return result;
+	}
+	
+	private static final void assertLinks(LinkedVersionsAndReleasesIds linkedIds, List<String> expectedSSCApplicationVersionIds, List<String> expectedFoDReleaseIds) {
+		assertEquals(new HashSet<>(expectedSSCApplicationVersionIds), linkedIds.getLinkedSSCApplicationVersionIds());
+		assertEquals(new HashSet<>(expectedFoDReleaseIds), linkedIds.getLinkedFoDReleaseIds());
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+class SyncScansTaskTest {
+	private static final Date EXPECTED = Date.from(LocalDateTime.of(2021, 3, 4, 5, 6, 7).atZone(ZoneId.systemDefault()).toInstant());
+
+	@Test
+	void parseFoDDateWithoutTrailingText() {
+		assertEquals(EXPECTED, SyncScansTask.parseFoDDate("2021-03-04T05:06:07"));
+	}
+	
+	@Test
+	void parseFoDDateIgnoresFractionalSeconds() {
+		assertEquals(EXPECTED, SyncScansTask.parseFoDDate("2021-03-04T05:06:07.123"));
+		assertEquals(EXPECTED, SyncScansTask.parseFoDDate("2021-03-04T05:06:07.1234567"));
+	}
+	
+	@Test
+	void parseFoDDateIgnoresTimeZoneDesignator() {
+		assertEquals(EXPECTED, SyncScansTask.parseFoDDate("2021-03-04T05:06:07Z"));
+		assertEquals(EXPECTED, SyncScansTask.parseFoDDate("2021-03-04T05:06:07.123+00:00"));
+	}
+	
+	@Test
+	void parseFoDDateReturnsNullForNull() {
+		assertNull(SyncScansTask.parseFoDDate(null));
+	}
+	
+	@Test
+	void parseFoDDateFailsOnInvalidDate() {
+		assertThrows(RuntimeException.class, ()->SyncScansTask.parseFoDDate("not a date"));
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.sync.fod_ssc.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fortify.sync.fod_ssc.config.FoDWebhookConfig;
+import com.fortify.sync.fod_ssc.task.IFoDReleasesSyncer;
+import com.fortify.sync.fod_ssc.task.ScanCompletedEventQueue;
+
+/**
+ * Test {@link FoDWebhookController} together with {@link ScanCompletedEventQueue},
+ * using an {@link IFoDReleasesSyncer} that records the synchronized release id's.
+ * 
+ * @author Ruud Senden
+ *
+ */
+class FoDWebhookControllerTest {
+	private static final String TOKEN = "secret";
+	private final BlockingQueue<Collection<String>> syncedReleaseIds = new LinkedBlockingQueue<>();
+	private final ScanCompletedEventQueue queue = new ScanCompletedEventQueue();
+	private volatile boolean failSync = false;
+	private MockMvc mockMvc;
+	
+	@BeforeEach
+	void setup() {
+		FoDWebhookConfig config = new FoDWebhookConfig();
+		config.setEnabled(true);
+		config.setToken(TOKEN);
+		IFoDReleasesSyncer syncer = fodReleaseIds -> {
+			syncedReleaseIds.add(new ArrayList<>(fodReleaseIds));
+			if ( failSync ) { throw new IllegalStateException("Simulated sync failure"); }
+		};
+		ReflectionTestUtils.setField(queue, "config", config);
+		ReflectionTestUtils.setField(queue, "fodReleasesSyncer", syncer);
+		FoDWebhookController controller = new FoDWebhookController();
+		ReflectionTestUtils.setField(controller, "config", config);
+		ReflectionTestUtils.setField(controller, "scanCompletedEventQueue", queue);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+	
+	@AfterEach
+	void tearDown() {
+		queue.preDestroy();
+	}
+	
+	@Test
+	void rejectsMissingOrInvalidToken() throws Exception {
+		postEvent(null, "{\"releaseId\": 1}").andExpect(status().isUnauthorized());
+		postEvent("other", "{\"releaseId\": 1}").andExpect(status().isUnauthorized());
+		postEvent("secre", "{\"releaseId\": 1}").andExpect(status().isUnauthorized());
+	}
+	
+	@Test
+	void rejectsMissingReleaseId() throws Exception {
+		postEvent(TOKEN, "{\"scanId\": 2}").andExpect(status().isBadRequest());
+	}
+	
+	@Test
+	void queuesReleaseForSync() throws Exception {
+		postEvent(TOKEN, "{\"ReleaseId\": 1, \"scanId\": 2}")
+			.andExpect(status().isAccepted()).andExpect(content().string("Queued"));
+		assertEquals(Collections.singletonList("1"), nextSync());
+	}
+	
+	@Test
+	void ignoresDuplicateEventAfterSuccessfulSync() throws Exception {
+		postEvent(TOKEN, "{\"releaseId\": 1, \"scanId\": 2}").andExpect(status().isAccepted());
+		nextSync();
+		awaitIdle();
+		postEvent(TOKEN, "{\"releaseId\": 1, \"scanId\": 2}")
+			.andExpect(status().isOk()).andExpect(content().string("Duplicate"));
+		postEvent(TOKEN, "{\"releaseId\": 1, \"scanId\": 3}").andExpect(status().isAccepted());
+		assertEquals(Collections.singletonList("1"), nextSync());
+	}
+	
+	@Test
+	void doesNotDeduplicateEventsWithoutScanId() throws Exception {
+		postEvent(TOKEN, "{\"releaseId\": 1}").andExpect(status().isAccepted());
+		nextSync();
+		postEvent(TOKEN, "{\"releaseId\": 1}").andExpect(status().isAccepted());
+		assertEquals(Collections.singletonList("1"), nextSync());
+	}
+	
+	@Test
+	void requeuesEventAfterFailedSync() throws Exception {
+		failSync = true;
+		postEvent(TOKEN, "{\"releaseId\": 1, \"scanId\": 2}").andExpect(status().isAccepted());
+		nextSync();
+		failSync = false;
+		awaitIdle();
+		postEvent(TOKEN, "{\"releaseId\": 1, \"scanId\": 2}").andExpect(status().isAccepted());
+		assertEquals(Collections.singletonList("1"), nextSync());
+	}
+	
+	private ResultActions postEvent(String token, String payload) throws Exception {
+		MockHttpServletRequestBuilder request = post("/webhooks/fod/scan-completed")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload);
+		if ( token!=null ) {
+			request.param("token", token);
+		}
+		return mockMvc.perform(request);
+	}
+	
+	private Collection<String> nextSync() throws InterruptedException {
+		Collection<String> result = syncedReleaseIds.poll(10, TimeUnit.SECONDS);
+		assertNotNull(result, "Expected release id's to be synchronized");
+		return result;
+	}
+	
+	/**
+	 * Wait until the queue worker has finished processing the current sync, including
+	 * recording the synchronized events
+	 */
+	private void awaitIdle() throws Exception {
+		ExecutorService executor = (ExecutorService)ReflectionTestUtils.getField(queue, "executor");
+		executor.submit(()->{}).get(10, TimeUnit.SECONDS);
+	}
+}